@@ -0,0 +1,309 @@
+package com.example.pixz;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Video frame grabber backed by the ffmpeg executable
+ * Frames are streamed as raw RGBA over stdout straight into WritableImages (no temp
+ * files). ffmpeg seeks on the input side (-ss before -i) and scales to the thumbnail
+ * box itself. Requests that queue up while a process is running are batched into
+ * the next invocation: every input is scaled and padded (transparently) to the same
+ * box and concatenated, so a batch is one fixed-size stream of frames; the padding
+ * is cropped off again here
+ *
+ * The executable is "ffmpeg" on the PATH unless -Dpixz.ffmpeg names another one;
+ * -Dpixz.ffmpeg.timeoutMs changes the base timeout of an invocation
+ */
+public class FFmpegFrameExtractor {
+    private static final String COMMAND = System.getProperty("pixz.ffmpeg", "ffmpeg");
+    private static final int MAX_BATCH = 8;
+    private static final int PROCESSES = 2; // Concurrent ffmpeg invocations
+    private static final long BASE_TIMEOUT_MS = Long.getLong("pixz.ffmpeg.timeoutMs", 8000);
+    private static final long TIMEOUT_PER_FILE_MS = 2000;
+    private static final String SEEK = "1"; // Seconds into the video, skips black intro frames
+
+    private static final boolean AVAILABLE = checkAvailable();
+
+    private static final ExecutorService processExecutor = Executors.newFixedThreadPool(PROCESSES, r -> {
+        Thread thread = new Thread(r, "ffmpeg-frames");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Object lock = new Object();
+    private static final List<Pending> pending = new ArrayList<>(); // Guarded by lock
+    private static final AtomicInteger runningBatches = new AtomicInteger();
+
+    /**
+     * File waiting for a frame
+     */
+    private static final class Pending {
+        final File file;
+        final int size;
+        final CompletableFuture<Image> future = new CompletableFuture<>();
+
+        Pending(File file, int size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    private FFmpegFrameExtractor() {
+    }
+
+    private static boolean checkAvailable() {
+        try {
+            Process process = new ProcessBuilder(COMMAND, "-version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(3, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * True if the ffmpeg executable could be started (checked once)
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Grab one frame scaled to fit size x size (aspect ratio preserved)
+     * The future completes with null if ffmpeg cannot produce a frame
+     */
+    public static CompletableFuture<Image> extractFrame(File video, int size) {
+        Pending request = new Pending(video, size);
+        if (!AVAILABLE) {
+            request.future.complete(null);
+            return request.future;
+        }
+        synchronized (lock) {
+            pending.add(request);
+        }
+        dispatch();
+        return request.future;
+    }
+
+    /**
+     * Start another process if one is free and work is waiting
+     */
+    private static void dispatch() {
+        while (true) {
+            int running = runningBatches.get();
+            if (running >= PROCESSES) {
+                return; // A finishing batch dispatches again
+            }
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+            if (runningBatches.compareAndSet(running, running + 1)) {
+                processExecutor.execute(FFmpegFrameExtractor::runBatches);
+                return;
+            }
+        }
+    }
+
+    private static void runBatches() {
+        try {
+            List<Pending> batch = takeBatch();
+            if (!batch.isEmpty()) {
+                runBatch(batch);
+            }
+        } finally {
+            runningBatches.decrementAndGet();
+            dispatch();
+        }
+    }
+
+    /**
+     * Up to MAX_BATCH waiting requests of the same size, oldest first
+     */
+    private static List<Pending> takeBatch() {
+        List<Pending> batch = new ArrayList<>();
+        synchronized (lock) {
+            int size = pending.isEmpty() ? 0 : pending.get(0).size;
+            for (int i = 0; i < pending.size() && batch.size() < MAX_BATCH; i++) {
+                if (pending.get(i).size == size) {
+                    batch.add(pending.remove(i--));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private static void runBatch(List<Pending> batch) {
+        Image[] frames;
+        try {
+            frames = grab(batch);
+        } catch (IOException | RuntimeException e) {
+            frames = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            frames = null;
+        }
+
+        if (frames == null && batch.size() > 1) {
+            // One bad input fails the whole invocation: retry the files one by one
+            for (Pending request : batch) {
+                runBatch(List.of(request));
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(frames != null ? frames[i] : null);
+        }
+    }
+
+    /**
+     * Run ffmpeg once for all files of a batch; null if it did not deliver every frame
+     */
+    private static Image[] grab(List<Pending> batch) throws IOException, InterruptedException {
+        int size = batch.get(0).size;
+        int frameBytes = size * size * 4;
+        Process process = new ProcessBuilder(buildCommand(batch, size))
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        process.getOutputStream().close(); // -nostdin, but never leave it waiting on input
+
+        // Kill a hung process; the read below then ends early
+        AtomicBoolean timedOut = new AtomicBoolean();
+        long timeout = BASE_TIMEOUT_MS + TIMEOUT_PER_FILE_MS * (batch.size() - 1);
+        CompletableFuture.delayedExecutor(timeout, TimeUnit.MILLISECONDS).execute(() -> {
+            if (process.isAlive()) {
+                timedOut.set(true);
+                process.destroyForcibly();
+            }
+        });
+
+        byte[] output;
+        try (InputStream in = process.getInputStream()) {
+            output = in.readNBytes(frameBytes * batch.size());
+        } finally {
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+        if (timedOut.get()) {
+            Log.warn("ffmpeg timed out on " + batch.size() + " video(s)");
+            // Which input hung is unknown: a batch is retried file by file like any
+            // other failure, a single file that hangs ffmpeg is not retried
+            return batch.size() > 1 ? null : new Image[1];
+        }
+        if (output.length != frameBytes * batch.size() || process.exitValue() != 0) {
+            return null;
+        }
+
+        Image[] frames = new Image[batch.size()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = toImage(output, i * frameBytes, size);
+        }
+        return frames;
+    }
+
+    /**
+     * One input per file, each seeked, scaled into the box, padded with transparent
+     * borders to exactly size x size, then concatenated into a single raw stream
+     */
+    private static List<String> buildCommand(List<Pending> batch, int size) {
+        List<String> command = new ArrayList<>();
+        command.add(COMMAND);
+        command.add("-hide_banner");
+        command.add("-nostdin");
+        command.add("-loglevel");
+        command.add("error");
+        for (Pending request : batch) {
+            command.add("-ss");
+            command.add(SEEK); // Before -i: fast keyframe seek on the input
+            command.add("-i");
+            command.add(request.file.getAbsolutePath());
+        }
+
+        StringBuilder filter = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            filter.append('[').append(i).append(":v:0]trim=end_frame=1,")
+                    .append("scale=").append(size).append(':').append(size)
+                    .append(":force_original_aspect_ratio=decrease,format=rgba,")
+                    .append("pad=").append(size).append(':').append(size)
+                    .append(":(ow-iw)/2:(oh-ih)/2:color=black@0,setsar=1[v").append(i).append("];");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            filter.append("[v").append(i).append(']');
+        }
+        filter.append("concat=n=").append(batch.size()).append(":v=1:a=0[out]");
+
+        command.add("-filter_complex");
+        command.add(filter.toString());
+        command.add("-map");
+        command.add("[out]");
+        command.add("-vsync");
+        command.add("0"); // Exactly one output frame per input
+        command.add("-f");
+        command.add("rawvideo");
+        command.add("-pix_fmt");
+        command.add("rgba");
+        command.add("pipe:1");
+        return command;
+    }
+
+    /**
+     * Crop the transparent padding off one RGBA frame and copy it into a WritableImage
+     */
+    private static Image toImage(byte[] rgba, int offset, int size) {
+        int left = size;
+        int right = -1;
+        int top = size;
+        int bottom = -1;
+        for (int y = 0; y < size; y++) {
+            int row = offset + y * size * 4;
+            for (int x = 0; x < size; x++) {
+                if (rgba[row + x * 4 + 3] != 0) {
+                    left = Math.min(left, x);
+                    right = Math.max(right, x);
+                    top = Math.min(top, y);
+                    bottom = Math.max(bottom, y);
+                }
+            }
+        }
+        if (right < 0) {
+            return null; // Nothing but padding
+        }
+
+        int width = right - left + 1;
+        int height = bottom - top + 1;
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int source = offset + ((top + y) * size + left) * 4;
+            for (int x = 0; x < width; x++, source += 4) {
+                pixels[y * width + x] = 0xFF000000 // Video frames are opaque
+                        | (rgba[source] & 0xFF) << 16
+                        | (rgba[source + 1] & 0xFF) << 8
+                        | (rgba[source + 2] & 0xFF);
+            }
+        }
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return image;
+    }
+}
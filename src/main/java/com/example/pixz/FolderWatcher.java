@@ -0,0 +1,203 @@
+package com.example.pixz;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches folders for created, modified and deleted entries (not recursive)
+ * Events are coalesced per path and delivered in batches once the folders have
+ * been quiet for the debounce interval (or MAX_LATENCY_MILLIS at the latest),
+ * so a camera import of hundreds of files arrives as a handful of batches
+ */
+public class FolderWatcher {
+    private static final long MAX_LATENCY_MILLIS = 3000;
+
+    public enum Kind {
+        CREATED, MODIFIED, DELETED,
+        /** Events were lost for this folder; the caller should rescan it */
+        OVERFLOW
+    }
+
+    /**
+     * Net change for one path since the previous batch
+     */
+    public static final class Change {
+        private final Path path;
+        private final Kind kind;
+
+        Change(Path path, Kind kind) {
+            this.path = path;
+            this.kind = kind;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+    }
+
+    /**
+     * Receives change batches (called on the watcher thread)
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onChanges(List<Change> changes);
+    }
+
+    private final WatchService watchService;
+    private final Listener listener;
+    private final long debounceMillis;
+    private final Map<Path, WatchKey> keys = new ConcurrentHashMap<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Pending changes, owned by the watcher thread
+    private final LinkedHashMap<Path, Kind> pending = new LinkedHashMap<>();
+
+    public FolderWatcher(Listener listener, long debounceMillis) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.listener = listener;
+        this.debounceMillis = Math.max(1, debounceMillis);
+        this.thread = new Thread(this::run, "folder-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Start watching a folder (no effect if it is already watched)
+     */
+    public void watch(Path folder) {
+        Path dir = folder.toAbsolutePath();
+        if (!running || keys.containsKey(dir)) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            keys.put(dir, key);
+        } catch (IOException | UnsupportedOperationException e) {
+            Log.warn("Cannot watch folder " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop watching a folder
+     */
+    public void unwatch(Path folder) {
+        WatchKey key = keys.remove(folder.toAbsolutePath());
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    public int getWatchedFolderCount() {
+        return keys.size();
+    }
+
+    private void run() {
+        long firstPendingAt = 0;
+        while (running) {
+            WatchKey key;
+            try {
+                key = pending.isEmpty() ? watchService.take()
+                        : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue; // Re-check running flag
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (key != null) {
+                if (pending.isEmpty()) {
+                    firstPendingAt = System.currentTimeMillis();
+                }
+                collect(key);
+            }
+
+            // Deliver when quiet, or when events keep arriving for too long
+            boolean quiet = key == null;
+            boolean overdue = System.currentTimeMillis() - firstPendingAt >= MAX_LATENCY_MILLIS;
+            if (!pending.isEmpty() && (quiet || overdue)) {
+                List<Change> batch = new ArrayList<>(pending.size());
+                for (Map.Entry<Path, Kind> entry : pending.entrySet()) {
+                    batch.add(new Change(entry.getKey(), entry.getValue()));
+                }
+                pending.clear();
+                try {
+                    listener.onChanges(batch);
+                } catch (Exception e) {
+                    Log.warn("Folder change listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void collect(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                pending.put(dir, Kind.OVERFLOW); // Replaces whatever was pending for the folder
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            Kind next = kind == StandardWatchEventKinds.ENTRY_CREATE ? Kind.CREATED
+                    : kind == StandardWatchEventKinds.ENTRY_DELETE ? Kind.DELETED : Kind.MODIFIED;
+            merge(path, next);
+        }
+
+        if (!key.reset()) {
+            // Folder was deleted or became inaccessible
+            keys.remove(dir, key);
+        }
+    }
+
+    /**
+     * Coalesce a new event with the pending one for the same path
+     */
+    private void merge(Path path, Kind next) {
+        Kind previous = pending.get(path);
+        if (previous == Kind.OVERFLOW) {
+            return; // The folder is rescanned anyway, which covers this event
+        } else if (previous == null) {
+            pending.put(path, next);
+        } else if (previous == Kind.CREATED && next == Kind.DELETED) {
+            pending.remove(path); // Appeared and vanished within one batch
+        } else if (previous == Kind.CREATED) {
+            // Still new, whatever happened to it afterwards
+        } else if (previous == Kind.DELETED && next == Kind.CREATED) {
+            pending.put(path, Kind.MODIFIED); // Replaced
+        } else {
+            pending.put(path, next);
+        }
+    }
+
+    /**
+     * Stop the watcher thread and release all watch keys
+     */
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            Log.warn("Error closing folder watcher: " + e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
@@ -55,8 +55,7 @@ public class GalleryApplication extends Application {
             );
 
         } catch (Exception e) {
-            System.err.println("Error loading icon: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error loading icon: " + e.getMessage(), e);
         }
 
         stage.setMinWidth(800);
@@ -92,8 +91,7 @@ public class GalleryApplication extends Application {
 
         stage.show();
         } catch (Exception e) {
-            System.err.println("ERROR in start method:");
-            e.printStackTrace();
+            Log.error("Error in start method", e);
             throw e;
         }
     }
@@ -142,8 +140,7 @@ public class GalleryApplication extends Application {
         try {
             launch();
         } catch (Exception e) {
-            System.err.println("ERROR in main:");
-            e.printStackTrace();
+            Log.error("Error in main", e);
             System.exit(1);
         }
     }
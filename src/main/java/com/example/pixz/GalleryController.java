@@ -1,14 +1,20 @@
 package com.example.pixz;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -109,11 +115,56 @@ public class GalleryController {
     private Button macMaximizeButton;
 
     private final Set<String> selectedFolders = new HashSet<>();
-    private final Set<String> favoritePaths = new HashSet<>();
+    // Folders the user added (or the session restored); the watcher follows everything below them
+    private final Set<String> selectedRoots = new HashSet<>();
+    private final Set<String> favoritePaths = ConcurrentHashMap.newKeySet(); // Read by scanner threads
     private final List<MediaItem> mediaItems = new ArrayList<>();
-    private final List<MediaItem> displayedItems = new ArrayList<>();
+
+    // Path -> item for everything in mediaItems (FX thread), plus items a running scan
+    // has claimed but not yet published (claimed from scanner threads via putIfAbsent)
+    private final Map<String, MediaItem> itemsByPath = new ConcurrentHashMap<>();
+    private List<MediaItem> displayedItems = new ArrayList<>();
+    // Filter/sort index over mediaItems; invalidate() after every change to the list
+    private final MediaQueryEngine queryEngine = new MediaQueryEngine(mediaItems);
     private final Map<String, HBox> folderCards = new HashMap<>();
 
+    // Thumbnail scheduling (FX thread only)
+    // Rows within PREFETCH_VIEWPORTS viewport heights of the visible area are requested;
+    // queued requests further than CANCEL_VIEWPORTS away are cancelled
+    private static final double PREFETCH_VIEWPORTS = 1.0;
+    private static final double CANCEL_VIEWPORTS = 3.0;
+    private final Map<MediaItem, ThumbnailGenerator.ThumbnailRequest> thumbnailRequests = new HashMap<>();
+    private final Set<MediaItem> thumbnailFailures = new HashSet<>(); // Retried on refresh
+    private boolean thumbnailScheduleQueued = false;
+
+    // While a scan streams in batches the gallery is refreshed at most this often
+    private static final double SCAN_REFRESH_MILLIS = 250;
+    private boolean scanRefreshQueued = false;
+
+    // Watches every folder in selectedFolders, the selected roots and folders created
+    // below them; null if the platform has no watch service
+    private static final long FOLDER_WATCH_DEBOUNCE_MILLIS = 500;
+    private FolderWatcher folderWatcher;
+
+    // Cards are pooled by the virtualized grid and rebound to items as the user scrolls
+    private final MasonryPane.CellBinder<MediaItem> galleryCellBinder = new MasonryPane.CellBinder<>() {
+        @Override
+        public javafx.scene.Node createCell() {
+            return createMediaCard();
+        }
+
+        @Override
+        public void bindCell(javafx.scene.Node cell, MediaItem item) {
+            bindMediaCard((StackPane) cell, item);
+        }
+
+        @Override
+        public void unbindCell(javafx.scene.Node cell, MediaItem item) {
+            clearImageViewsRecursive(cell); // Release the thumbnail while pooled
+            cell.setUserData(null);
+        }
+    };
+
     // Filter and sort state
     private enum MediaFilter {
         ALL, PHOTOS, VIDEOS
@@ -179,6 +230,16 @@ public class GalleryController {
         // Enable scroll past end - add extra padding at bottom
         setupScrollPastEnd();
 
+        // Re-rank thumbnail requests as the viewport moves
+        setupThumbnailScheduling();
+
+        // Pick up imports, edits and deletions without a manual refresh
+        try {
+            folderWatcher = new FolderWatcher(this::onFolderChanges, FOLDER_WATCH_DEBOUNCE_MILLIS);
+        } catch (IOException e) {
+            Log.warn("Folder watching unavailable: " + e.getMessage());
+        }
+
         // Sidebar is now permanently visible - no setup needed
 
         // Store header reference
@@ -325,40 +386,520 @@ public class GalleryController {
         });
     }
 
+    /**
+     * Re-run thumbnail scheduling whenever the visible part of the grid changes
+     */
+    private void setupThumbnailScheduling() {
+        galleryPane.bindToScrollPane(galleryScrollPane);
+        galleryScrollPane.vvalueProperty().addListener((obs, oldVal, newVal) -> scheduleVisibleThumbnails());
+        galleryScrollPane.viewportBoundsProperty().addListener((obs, oldVal, newVal) -> scheduleVisibleThumbnails());
+        galleryPane.widthProperty().addListener((obs, oldVal, newVal) -> scheduleVisibleThumbnails());
+    }
+
+    /**
+     * Schedule thumbnail requests for the current viewport (coalesced to once per pulse)
+     */
+    private void scheduleVisibleThumbnails() {
+        if (thumbnailScheduleQueued) {
+            return;
+        }
+        thumbnailScheduleQueued = true;
+        Platform.runLater(() -> {
+            thumbnailScheduleQueued = false;
+            updateThumbnailSchedule();
+        });
+    }
+
+    /**
+     * Rank requests by row distance from the viewport: visible rows get priority 0,
+     * rows below and above get their distance in rows
+     * Requests too far away are cancelled before a worker starts them
+     */
+    private void updateThumbnailSchedule() {
+        double viewportHeight = galleryPane.getViewportHeight();
+        if (viewportHeight <= 0) {
+            return;
+        }
+
+        int columns = galleryPane.getColumnCount();
+        double rowPitch = galleryPane.getRowPitch();
+        int firstRow = galleryPane.getFirstVisibleRow();
+        int lastRow = galleryPane.getLastVisibleRow();
+        int prefetchRows = (int) Math.ceil(viewportHeight * PREFETCH_VIEWPORTS / rowPitch);
+        int cancelRows = (int) Math.ceil(viewportHeight * CANCEL_VIEWPORTS / rowPitch);
+
+        // Re-rank queued requests, cancel the ones scrolled far away or filtered out
+        Iterator<Map.Entry<MediaItem, ThumbnailGenerator.ThumbnailRequest>> it = thumbnailRequests.entrySet()
+                .iterator();
+        while (it.hasNext()) {
+            Map.Entry<MediaItem, ThumbnailGenerator.ThumbnailRequest> entry = it.next();
+            int index = queryEngine.positionOf(entry.getKey());
+            int distance = index < 0 ? Integer.MAX_VALUE : rowDistance(index / columns, firstRow, lastRow);
+            if (distance > cancelRows) {
+                if (entry.getValue().cancel()) {
+                    it.remove();
+                }
+            } else {
+                entry.getValue().setPriority(distance);
+            }
+        }
+
+        // Request the visible rows plus the prefetch margin
+        int fromIndex = Math.max(0, (firstRow - prefetchRows) * columns);
+        int toIndex = (int) Math.min(displayedItems.size(), (long) (lastRow + prefetchRows + 1) * columns);
+        for (int i = fromIndex; i < toIndex; i++) {
+            MediaItem item = displayedItems.get(i);
+            if (thumbnailRequests.containsKey(item) || thumbnailFailures.contains(item)
+                    || item.getThumbnail() != null) {
+                continue;
+            }
+            requestThumbnail(item, rowDistance(i / columns, firstRow, lastRow));
+        }
+    }
+
+    private static int rowDistance(int row, int firstRow, int lastRow) {
+        if (row < firstRow) {
+            return firstRow - row;
+        }
+        return Math.max(0, row - lastRow);
+    }
+
+    private void requestThumbnail(MediaItem item, double priority) {
+        ThumbnailGenerator.ThumbnailRequest request = ThumbnailGenerator.requestThumbnail(item, priority);
+        thumbnailRequests.put(item, request);
+        request.preview().thenAccept(preview -> {
+            if (preview != null) {
+                Platform.runLater(() -> showThumbnailPreview(item, request, preview));
+            }
+        });
+        request.future().whenComplete((thumbnail, throwable) -> Platform.runLater(() -> {
+            if (thumbnailRequests.get(item) == request) {
+                thumbnailRequests.remove(item);
+            }
+            if (throwable != null) {
+                return; // Cancelled - requested again when it scrolls back into range
+            }
+            if (thumbnail != null) {
+                item.setThumbnail(thumbnail);
+                updateGalleryItem(item);
+            } else {
+                thumbnailFailures.add(item);
+            }
+        }));
+    }
+
+    /**
+     * Show a request's embedded preview until its full thumbnail arrives
+     * Not stored on the item, so the full thumbnail is still generated and cached
+     */
+    private void showThumbnailPreview(MediaItem item, ThumbnailGenerator.ThumbnailRequest request, Image preview) {
+        if (request.isDone() || item.getThumbnail() != null) {
+            return;
+        }
+        javafx.scene.Node card = galleryPane.getCell(item);
+        if (card instanceof StackPane && card.getUserData() == item) {
+            updateCardWithThumbnail((StackPane) card, item, preview, true);
+        }
+    }
+
+    /**
+     * Cancel every queued thumbnail request
+     */
+    private void cancelThumbnailRequests() {
+        for (ThumbnailGenerator.ThumbnailRequest request : thumbnailRequests.values()) {
+            request.cancel();
+        }
+        thumbnailRequests.clear();
+    }
+
     /**
      * Load folders from previous session
      */
     private void loadPreviousSession() {
         Set<String> savedFolders = SessionManager.loadSession();
 
+        // Load favorites
+        favoritePaths.addAll(SessionManager.loadFavorites());
+
         if (!savedFolders.isEmpty()) {
-            // Load each folder
-            for (String folderPath : savedFolders) {
-                File folder = new File(folderPath);
-                if (folder.exists() && folder.isDirectory()) {
-                    scanFolder(folder);
+            selectedRoots.addAll(savedFolders);
+            List<MediaItem> cataloged = MediaCatalog.load();
+            if (!cataloged.isEmpty()) {
+                // Show the cataloged library right away, then diff it against the file system
+                restoreFromCatalog(savedFolders, cataloged);
+                reconcileWithFileSystem(savedFolders);
+            } else {
+                // No catalog yet - load each folder
+                for (String folderPath : savedFolders) {
+                    File folder = new File(folderPath);
+                    if (folder.exists() && folder.isDirectory()) {
+                        scanFolder(folder);
+                    }
                 }
             }
         }
         
-        // Load favorites
-        favoritePaths.addAll(SessionManager.loadFavorites());
-        
         // Mark items as favorites
         for (MediaItem item : mediaItems) {
             if (favoritePaths.contains(item.getPath())) {
                 item.setFavorite(true);
             }
         }
+        queryEngine.favoritesChanged();
     }
 
     /**
-     * Save current session (called on app close)
+     * Populate the gallery and sidebar from the media catalog without touching the tree
+     * Only entries whose folder is part of the saved session are used
      */
+    private void restoreFromCatalog(Set<String> savedFolders, List<MediaItem> cataloged) {
+        for (MediaItem item : cataloged) {
+            if (savedFolders.contains(item.getParentPath())
+                    && itemsByPath.putIfAbsent(item.getPath(), item) == null) {
+                mediaItems.add(item);
+            }
+        }
+        queryEngine.invalidate();
+
+        for (String folderPath : savedFolders) {
+            addSelectedFolder(folderPath);
+        }
+        if (!selectedFolders.isEmpty()) {
+            addAllFoldersOption();
+        }
+
+        refreshGallery();
+    }
+
+    /**
+     * Re-scan the saved folders in the background and apply only the differences
+     * (new, deleted and modified files) to the cataloged items
+     */
+    private void reconcileWithFileSystem(Set<String> folders) {
+        // Scan each top-level folder once; nested saved folders are covered by their ancestor
+        List<String> roots = new ArrayList<>();
+        for (String folderPath : folders) {
+            boolean nested = false;
+            for (String other : folders) {
+                if (!other.equals(folderPath) && folderPath.startsWith(other + File.separator)) {
+                    nested = true;
+                    break;
+                }
+            }
+            if (!nested) {
+                roots.add(folderPath);
+            }
+        }
+        List<MediaItem> known = new ArrayList<>(mediaItems);
+
+        CompletableFuture.runAsync(() -> {
+            Map<String, MediaCatalog.Diff> diffs = new HashMap<>();
+            Map<String, Integer> folderMediaCount = new HashMap<>();
+
+            for (String root : roots) {
+                File rootFolder = new File(root);
+                List<MediaItem> scanned = rootFolder.isDirectory()
+                        ? MediaScanner.scanAll(rootFolder, folderMediaCount)
+                        : new ArrayList<>();
+
+                String prefix = root + File.separator;
+                List<MediaItem> knownUnderRoot = new ArrayList<>();
+                for (MediaItem item : known) {
+                    if (item.getPath().startsWith(prefix)) {
+                        knownUnderRoot.add(item);
+                    }
+                }
+                diffs.put(root, MediaCatalog.diff(knownUnderRoot, scanned));
+            }
+
+            Platform.runLater(() -> applyReconciliation(diffs, folderMediaCount));
+        }).exceptionally(e -> {
+            Log.warn("Library reconciliation failed: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Add an item unless its path is already known (FX thread)
+     */
+    private boolean addItem(MediaItem item) {
+        if (itemsByPath.putIfAbsent(item.getPath(), item) != null) {
+            return false;
+        }
+        if (favoritePaths.contains(item.getPath())) {
+            item.setFavorite(true);
+        }
+        mediaItems.add(item);
+        queryEngine.invalidate();
+        return true;
+    }
+
+    /**
+     * Remove items of deleted files: release their thumbnails, drop their cache
+     * entries and forget them as favorites (FX thread)
+     */
+    private void removeItems(Collection<MediaItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<MediaItem> doomed = new HashSet<>(items);
+        boolean favoritesChanged = false;
+        for (MediaItem item : doomed) {
+            itemsByPath.remove(item.getPath(), item);
+            item.setThumbnail(null);
+            dropCachedThumbnail(item);
+            thumbnailFailures.remove(item);
+            favoritesChanged |= favoritePaths.remove(item.getPath());
+        }
+        mediaItems.removeIf(doomed::contains);
+        queryEngine.invalidate();
+        if (favoritesChanged) {
+            SessionManager.saveFavorites(favoritePaths);
+        }
+    }
+
+    /**
+     * Swap items for newer versions of the same files, keeping their position (FX thread)
+     */
+    private void replaceItems(Map<MediaItem, MediaItem> swaps) {
+        if (swaps.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<MediaItem, MediaItem> swap : swaps.entrySet()) {
+            MediaItem previous = swap.getKey();
+            MediaItem replacement = swap.getValue();
+            dropCachedThumbnail(previous);
+            replacement.setFavorite(previous.isFavorite());
+            itemsByPath.put(replacement.getPath(), replacement);
+        }
+        mediaItems.replaceAll(item -> swaps.getOrDefault(item, item));
+        queryEngine.invalidate();
+    }
+
+    /**
+     * Add a folder to selectedFolders, the sidebar and the watcher
+     * Returns false if it was already selected
+     */
+    private boolean addSelectedFolder(String folderPath) {
+        if (!selectedFolders.add(folderPath)) {
+            return false;
+        }
+        addFolderToSidebar(new File(folderPath));
+        if (folderWatcher != null) {
+            folderWatcher.watch(Paths.get(folderPath));
+        }
+        return true;
+    }
+
+    /**
+     * Whether path is a selected folder, a selected root or lies below a root
+     */
+    private boolean isUnderSelectedRoot(String path) {
+        if (selectedFolders.contains(path)) {
+            return true;
+        }
+        for (String root : selectedRoots) {
+            if (path.equals(root) || path.startsWith(root + File.separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove the cache entry of an item's recorded file version
+     */
+    private void dropCachedThumbnail(MediaItem item) {
+        ThumbnailCache.removeOutdatedThumbnail(item);
+    }
+
+    /**
+     * Watcher batch (watcher thread): read attributes of created and modified
+     * files here, then apply the result on the FX thread
+     */
+    private void onFolderChanges(List<FolderWatcher.Change> changes) {
+        List<MediaItem> updated = new ArrayList<>();
+        Set<String> deleted = new HashSet<>();
+        List<File> newFolders = new ArrayList<>();
+        Set<String> overflowed = new HashSet<>();
+
+        for (FolderWatcher.Change change : changes) {
+            Path path = change.getPath();
+            switch (change.getKind()) {
+                case DELETED:
+                    deleted.add(path.toString());
+                    break;
+                case OVERFLOW:
+                    overflowed.add(path.toString());
+                    break;
+                default:
+                    if (Files.isDirectory(path)) {
+                        if (change.getKind() == FolderWatcher.Kind.CREATED) {
+                            newFolders.add(path.toFile());
+                        }
+                    } else {
+                        MediaItem item = MediaScanner.createItem(path);
+                        if (item != null) {
+                            updated.add(item);
+                        }
+                    }
+                    break;
+            }
+        }
+
+        if (updated.isEmpty() && deleted.isEmpty() && newFolders.isEmpty() && overflowed.isEmpty()) {
+            return;
+        }
+        Platform.runLater(() -> applyFolderChanges(updated, deleted, newFolders, overflowed));
+    }
+
+    /**
+     * Apply watcher changes to mediaItems, the sidebar and the thumbnail cache in place
+     */
+    private void applyFolderChanges(List<MediaItem> updated, Set<String> deleted, List<File> newFolders,
+            Set<String> overflowed) {
+        // Deleted folders leave the sidebar together with their items
+        for (String deletedPath : deleted) {
+            List<String> gone = new ArrayList<>();
+            for (String folderPath : selectedFolders) {
+                if (folderPath.equals(deletedPath) || folderPath.startsWith(deletedPath + File.separator)) {
+                    gone.add(folderPath);
+                }
+            }
+            for (String folderPath : gone) {
+                removeFolder(folderPath);
+            }
+            selectedRoots.removeIf(root -> root.equals(deletedPath) || root.startsWith(deletedPath + File.separator));
+        }
+
+        // Deleted files
+        List<MediaItem> removed = new ArrayList<>();
+        for (String path : deleted) {
+            MediaItem item = itemsByPath.get(path);
+            if (item != null) {
+                removed.add(item);
+            }
+        }
+        removeItems(removed);
+
+        // Created and modified files (any watched folder below a selected root; the
+        // first media file in a folder adds it to the sidebar)
+        boolean isFirstFolder = selectedFolders.isEmpty();
+        Map<MediaItem, MediaItem> swaps = new HashMap<>();
+        for (MediaItem item : updated) {
+            // Ignore events from folders removed in the meantime
+            if (!isUnderSelectedRoot(item.getParentPath())) {
+                continue;
+            }
+
+            MediaItem previous = itemsByPath.get(item.getPath());
+            if (previous == null) {
+                addItem(item);
+                addSelectedFolder(item.getParentPath());
+            } else if (!previous.getSnapshot().sameVersion(item.getSnapshot())) {
+                swaps.put(previous, item);
+            }
+        }
+        replaceItems(swaps);
+        if (isFirstFolder && !selectedFolders.isEmpty()) {
+            addAllFoldersOption();
+        }
+
+        // New subfolders are watched and scanned; their media folders join the sidebar
+        for (File folder : newFolders) {
+            if (isUnderSelectedRoot(folder.getAbsolutePath())) {
+                scanFolder(folder);
+            }
+        }
+
+        // Lost events: fall back to reconciling those folders
+        if (!overflowed.isEmpty()) {
+            reconcileWithFileSystem(overflowed);
+        }
+
+        refreshGallery();
+        updateHeaderInfo();
+        MediaCatalog.saveAsync(new ArrayList<>(mediaItems));
+    }
+
+    private void applyReconciliation(Map<String, MediaCatalog.Diff> diffs, Map<String, Integer> folderMediaCount) {
+        Set<String> removedPaths = new HashSet<>();
+        Map<String, MediaItem> replacements = new HashMap<>();
+        List<MediaItem> added = new ArrayList<>();
+
+        for (Map.Entry<String, MediaCatalog.Diff> entry : diffs.entrySet()) {
+            // Skip folders the user removed while the scan was running
+            if (!isUnderSelectedRoot(entry.getKey())) {
+                continue;
+            }
+            MediaCatalog.Diff diff = entry.getValue();
+            for (MediaItem item : diff.getRemoved()) {
+                removedPaths.add(item.getPath());
+            }
+            for (MediaItem item : diff.getChanged()) {
+                replacements.put(item.getPath(), item);
+            }
+            added.addAll(diff.getAdded());
+        }
+
+        boolean foldersChanged = false;
+        for (Map.Entry<String, Integer> entry : folderMediaCount.entrySet()) {
+            String folderPath = entry.getKey();
+            boolean underSelectedRoot = false;
+            for (String root : diffs.keySet()) {
+                if (isUnderSelectedRoot(root)
+                        && (folderPath.equals(root) || folderPath.startsWith(root + File.separator))) {
+                    underSelectedRoot = true;
+                    break;
+                }
+            }
+            if (underSelectedRoot && entry.getValue() > 0 && addSelectedFolder(folderPath)) {
+                foldersChanged = true;
+            }
+        }
+
+        if (removedPaths.isEmpty() && replacements.isEmpty() && added.isEmpty()) {
+            if (foldersChanged) {
+                updateHeaderInfo();
+            }
+            return;
+        }
+
+        // Removed files: drop items, their thumbnails and cache entries
+        List<MediaItem> removed = new ArrayList<>();
+        for (String path : removedPaths) {
+            MediaItem item = itemsByPath.get(path);
+            if (item != null) {
+                removed.add(item);
+            }
+        }
+        removeItems(removed);
+
+        // Modified files: swap in the rescanned item (its thumbnail key changed with mtime)
+        Map<MediaItem, MediaItem> swaps = new HashMap<>();
+        for (MediaItem replacement : replacements.values()) {
+            MediaItem previous = itemsByPath.get(replacement.getPath());
+            if (previous != null) {
+                swaps.put(previous, replacement);
+            }
+        }
+        replaceItems(swaps);
+
+        // New files (skipping any the watcher or a scan has added meanwhile)
+        for (MediaItem item : added) {
+            addItem(item);
+        }
+
+        refreshGallery();
+        updateHeaderInfo();
+        MediaCatalog.saveAsync(new ArrayList<>(mediaItems));
+    }
+
     public void saveCurrentSession() {
 
         SessionManager.saveSession(selectedFolders);
         SessionManager.saveFavorites(favoritePaths);
+        MediaCatalog.save(mediaItems);
     }
 
     private void showEmptyStateIfNeeded() {
@@ -495,71 +1036,24 @@ public class GalleryController {
 
     @FXML
     protected void onRefreshClick() {
-        // Step 1: Identify items without thumbnails (need regeneration)
-        List<MediaItem> itemsToRegenerate = new ArrayList<>();
-
-        for (MediaItem item : mediaItems) {
-            Image thumbnail = item.getThumbnail();
-
-            if (thumbnail == null) {
-                // No thumbnail - needs regeneration
-                itemsToRegenerate.add(item);
-            }
-        }
-
-        // Step 2: Regenerate thumbnails only for items without them
-        for (MediaItem item : itemsToRegenerate) {
-            ThumbnailCache.removeCachedThumbnail(item.getFile());
-
-            // Regenerate thumbnail asynchronously based on type
-            CompletableFuture<Image> thumbnailFuture;
-            if (item.getType() == MediaItem.MediaType.IMAGE) {
-                thumbnailFuture = ThumbnailGenerator.generateImageThumbnail(item.getFile());
-            } else {
-                thumbnailFuture = ThumbnailGenerator.generateVideoThumbnail(item.getFile());
-            }
-
-            // Capture item in final variable for lambda
-            final MediaItem currentItem = item;
-            thumbnailFuture.thenAccept(newThumbnail -> {
-                Platform.runLater(() -> {
-                    currentItem.setThumbnail(newThumbnail);
-                    updateGalleryItem(currentItem);
-                });
-            });
+        // Step 1: Drop cached results of items whose thumbnail failed so they regenerate
+        // (items merely not loaded yet keep their disk cache entries)
+        for (MediaItem item : thumbnailFailures) {
+            ThumbnailCache.removeCachedThumbnail(item);
         }
 
-        // Step 3: Rescan folders to detect new/deleted files
-        if (currentFolderFilter != null) {
-            // Refresh specific folder
-            File folderToRefresh = new File(currentFolderFilter);
-            List<MediaItem> itemsToKeep = new ArrayList<>();
-            for (MediaItem item : mediaItems) {
-                if (!item.getPath().startsWith(currentFolderFilter)) {
-                    itemsToKeep.add(item);
-                }
-            }
-            mediaItems.clear();
-            mediaItems.addAll(itemsToKeep);
-
-            if (folderToRefresh.exists()) {
-                scanFolder(folderToRefresh);
-            } else {
-                refreshGallery();
-            }
-        } else {
-            // Refresh all folders
-            List<File> foldersToRescan = new ArrayList<>();
-            for (String folderPath : selectedFolders) {
-                foldersToRescan.add(new File(folderPath));
-            }
-            mediaItems.clear();
-            for (File folder : foldersToRescan) {
-                if (folder.exists()) {
-                    scanFolder(folder);
-                }
-            }
-        }
+        // Step 2: Forget queued requests and failures; visible items are requested again
+        // once the rescan repopulates the grid
+        cancelThumbnailRequests();
+        thumbnailFailures.clear();
+
+        // Step 3: Reconcile with the file system - only new, deleted and modified
+        // files are applied (the watcher normally keeps things current already)
+        Set<String> foldersToReconcile = currentFolderFilter != null
+                ? Set.of(currentFolderFilter)
+                : new HashSet<>(selectedFolders);
+        reconcileWithFileSystem(foldersToReconcile);
+        refreshGallery();
     }
 
     private void updateFilterButtonStyles() {
@@ -583,73 +1077,43 @@ public class GalleryController {
         favoritesButton.setStyle(showOnlyFavorites ? activeStyle : inactiveStyle);
     }
 
-    /**
-     * Check if a file is a direct child of a folder (not in subfolders)
-     */
-    private boolean isDirectChildOf(File file, File folder) {
-        File parent = file.getParentFile();
-        return parent != null && parent.getAbsolutePath().equals(folder.getAbsolutePath());
-    }
-
     private void applyFiltersAndSort() {
         // Show empty state if no media items
         if (mediaItems.isEmpty()) {
+            queryEngine.query(null, false, null, null, MediaQueryEngine.SortKey.NONE); // Resets positions
+            displayedItems = new ArrayList<>();
+            galleryPane.setVirtualItems(displayedItems, galleryCellBinder);
             showEmptyStateIfNeeded();
             return;
         }
 
         // Restore gallery view if it was replaced by empty state
-        if (!(rootPane.getCenter() instanceof ScrollPane)) {
+        boolean restoringView = !(rootPane.getCenter() instanceof ScrollPane);
+        if (restoringView) {
             rootPane.setCenter(galleryScrollPane);
         }
 
-        // Clear ImageViews properly before clearing children
-        clearGalleryImageViews();
-        galleryPane.getChildren().clear();
-
+        MediaItem.MediaType type = currentFilter == MediaFilter.PHOTOS ? MediaItem.MediaType.IMAGE
+                : currentFilter == MediaFilter.VIDEOS ? MediaItem.MediaType.VIDEO : null;
+        MediaQueryEngine.SortKey sortKey = "Name".equals(currentSortBy) ? MediaQueryEngine.SortKey.NAME
+                : "Date Modified".equals(currentSortBy) ? MediaQueryEngine.SortKey.DATE_MODIFIED
+                : MediaQueryEngine.SortKey.NONE;
         String searchText = searchField.getText();
-        String lowerSearch = searchText != null ? searchText.toLowerCase() : "";
+        MediaQueryEngine.Result result = queryEngine.query(type, showOnlyFavorites, currentFolderFilter,
+                searchText, sortKey);
+        displayedItems = result.getItems();
 
-        // Filter items
-        displayedItems.clear();
-        for (MediaItem item : mediaItems) {
-            // Apply favorites filter first
-            if (showOnlyFavorites && !item.isFavorite()) {
-                continue;
-            }
-            
-            // Apply media type filter
-            boolean matchesFilter = false;
-            switch (currentFilter) {
-                case ALL:
-                    matchesFilter = true;
-                    break;
-                case PHOTOS:
-                    matchesFilter = item.getType() == MediaItem.MediaType.IMAGE;
-                    break;
-                case VIDEOS:
-                    matchesFilter = item.getType() == MediaItem.MediaType.VIDEO;
-                    break;
-            }
-
-            // Apply search filter
-            boolean matchesSearch = searchText == null || searchText.trim().isEmpty() ||
-                    item.getName().toLowerCase().contains(lowerSearch);
-
-            // Apply folder filter - only show direct children of the selected folder
-            boolean matchesFolderFilter = currentFolderFilter == null ||
-                    isDirectChildOf(item.getFile(), new File(currentFolderFilter));
-
-            if (matchesFilter && matchesSearch && matchesFolderFilter) {
-                displayedItems.add(item);
-            }
+        // Same list as before (e.g. another keystroke with the same matches): leave the grid alone
+        if (!result.isChanged() && !restoringView && !displayedItems.isEmpty()) {
+            return;
         }
 
-        // Sort items
-        if ("Name".equals(currentSortBy)) {
-            displayedItems.sort(Comparator.comparing(MediaItem::getName, String.CASE_INSENSITIVE_ORDER));
-        } else if ("Date Modified".equals(currentSortBy)) {
-            displayedItems.sort((a, b) -> Long.compare(b.getFile().lastModified(), a.getFile().lastModified()));
+        // Drop queued thumbnails for items that were filtered out
+        for (MediaItem item : result.getRemoved()) {
+            ThumbnailGenerator.ThumbnailRequest request = thumbnailRequests.get(item);
+            if (request != null && request.cancel()) {
+                thumbnailRequests.remove(item);
+            }
         }
 
         // Display items or show no results message
@@ -686,20 +1150,22 @@ public class GalleryController {
 
             // Replace center content with no results message
             rootPane.setCenter(noResultsContainer);
+            galleryPane.setVirtualItems(displayedItems, galleryCellBinder);
         } else {
             // Restore gallery view if needed
             if (!(rootPane.getCenter() instanceof ScrollPane)) {
                 rootPane.setCenter(galleryScrollPane);
             }
 
-            for (MediaItem item : displayedItems) {
-                StackPane card = createMediaCard(item);
-                galleryPane.getChildren().add(card);
-            }
+            // Only cards for the visible rows are materialized; kept items keep their cards
+            galleryPane.setVirtualItems(displayedItems, galleryCellBinder);
         }
 
         // Update count
         itemCountLabel.setText(displayedItems.size() + " items");
+
+        // Visible cells first; requests for items no longer shown are cancelled
+        scheduleVisibleThumbnails();
     }
 
     private void filterByFolder(String folderPath) {
@@ -745,6 +1211,7 @@ public class GalleryController {
             String folderPath = selectedDirectory.getAbsolutePath();
             if (!selectedFolders.contains(folderPath)) {
                 // Don't add to sidebar yet - let scanFolder add only folders with media
+                selectedRoots.add(folderPath);
                 scanFolder(selectedDirectory);
             }
         }
@@ -856,6 +1323,10 @@ public class GalleryController {
 
     private void removeFolder(String folderPath) {
         selectedFolders.remove(folderPath);
+        selectedRoots.remove(folderPath);
+        if (folderWatcher != null) {
+            folderWatcher.unwatch(Paths.get(folderPath));
+        }
         HBox card = folderCards.remove(folderPath);
         if (card != null) {
             folderList.getChildren().remove(card);
@@ -866,129 +1337,100 @@ public class GalleryController {
             currentFolderFilter = null;
         }
 
-        // Remove media items from this folder and clear their thumbnails
+        // Remove media items from this folder and its subfolders and clear their thumbnails
+        // (the index also holds items a running scan has not published yet)
+        String prefix = folderPath + File.separator;
+        itemsByPath.values().removeIf(item -> item.getPath().startsWith(prefix));
         mediaItems.removeIf(item -> {
-            if (item.getPath().startsWith(folderPath)) {
+            if (itemsByPath.get(item.getPath()) != item) {
                 item.setThumbnail(null); // Release thumbnail reference
+                thumbnailFailures.remove(item);
                 return true;
             }
             return false;
         });
+        queryEngine.invalidate();
 
         refreshGallery();
         updateHeaderInfo();
+        MediaCatalog.saveAsync(new ArrayList<>(mediaItems));
     }
 
     private void scanFolder(File folder) {
-        // Scan folder sequentially to prevent memory spikes
-        // Uses bounded thread pool internally for thumbnail generation
-        CompletableFuture.runAsync(() -> {
-            List<MediaItem> newItems = new ArrayList<>();
-            Map<String, Integer> folderMediaCount = new HashMap<>();
-
-            // Scan files first (fast, no I/O)
-            scanFolderRecursive(folder, newItems, folderMediaCount);
+        // Watch before listing, so files created while the scan runs are not missed
+        // (the scan finds those created before, the watcher those created after)
+        if (folderWatcher != null) {
+            folderWatcher.watch(folder.toPath());
+        }
 
-            // Add items to gallery on UI thread
-            Platform.runLater(() -> {
-                // Add only new items that don't already exist (prevent duplicates)
-                for (MediaItem newItem : newItems) {
-                    boolean alreadyExists = false;
-                    for (MediaItem existingItem : mediaItems) {
-                        if (existingItem.getPath().equals(newItem.getPath())) {
-                            alreadyExists = true;
-                            break;
-                        }
-                    }
-                    if (!alreadyExists) {
-                        mediaItems.add(newItem);
-                        // Check if this item is in favorites
-                        if (favoritePaths.contains(newItem.getPath())) {
-                            newItem.setFavorite(true);
-                        }
+        // Parallel scan; batches are deduplicated on the scanner threads and
+        // published to the gallery as they arrive
+        MediaScanner.scan(folder, batch -> {
+            List<MediaItem> fresh = new ArrayList<>(batch.getItems().size());
+            for (MediaItem item : batch.getItems()) {
+                if (itemsByPath.putIfAbsent(item.getPath(), item) == null) {
+                    if (favoritePaths.contains(item.getPath())) {
+                        item.setFavorite(true);
                     }
+                    fresh.add(item);
                 }
-
-                // Only add folders that contain media files
-                boolean isFirstFolder = selectedFolders.isEmpty();
-                for (Map.Entry<String, Integer> entry : folderMediaCount.entrySet()) {
-                    String folderPath = entry.getKey();
-                    int mediaCount = entry.getValue();
-
-                    // Only add if folder has media and isn't already added
-                    if (mediaCount > 0 && !selectedFolders.contains(folderPath)) {
-                        selectedFolders.add(folderPath);
-                        addFolderToSidebar(new File(folderPath));
+            }
+            Platform.runLater(() -> publishScannedItems(fresh, batch.getFolderMediaCount()));
+        })
+                .whenComplete((count, throwable) -> Platform.runLater(() -> {
+                    if (throwable != null) {
+                        Log.warn("Folder scan failed: " + throwable.getMessage());
                     }
-                }
-                
-                // Add "All Folders" option if this is the first folder or if it doesn't exist yet
-                if (isFirstFolder && !selectedFolders.isEmpty()) {
-                    addAllFoldersOption();
-                }
-
-                refreshGallery();
-                updateHeaderInfo();
-
-                // Now progressively generate thumbnails (throttled by semaphore)
-                generateThumbnailsProgressively(newItems);
-            });
-        });
+                    // Final refresh with everything that was found
+                    scanRefreshQueued = false;
+                    refreshGallery();
+                    updateHeaderInfo();
+                    MediaCatalog.saveAsync(new ArrayList<>(mediaItems));
+                }));
     }
 
     /**
-     * Generate thumbnails progressively to avoid memory spikes
-     * Thumbnails are generated with bounded thread pool and semaphore throttling
+     * Publish one batch of deduplicated scan results (FX thread)
      */
-    private void generateThumbnailsProgressively(List<MediaItem> items) {
-        for (MediaItem item : items) {
-            if (item.getType() == MediaItem.MediaType.IMAGE) {
-                ThumbnailGenerator.generateImageThumbnail(item.getFile())
-                        .thenAccept(thumbnail -> {
-                            if (thumbnail != null) {
-                                item.setThumbnail(thumbnail);
-                                Platform.runLater(() -> updateGalleryItem(item));
-                            }
-                        });
-            } else if (item.getType() == MediaItem.MediaType.VIDEO) {
-                ThumbnailGenerator.generateVideoThumbnail(item.getFile())
-                        .thenAccept(thumbnail -> {
-                            if (thumbnail != null) {
-                                item.setThumbnail(thumbnail);
-                                Platform.runLater(() -> updateGalleryItem(item));
-                            }
-                        });
+    private void publishScannedItems(List<MediaItem> fresh, Map<String, Integer> folderMediaCount) {
+        // Skip items whose claim was dropped meanwhile (e.g. their folder was removed)
+        for (MediaItem item : fresh) {
+            if (itemsByPath.get(item.getPath()) == item) {
+                mediaItems.add(item);
             }
         }
-    }
+        queryEngine.invalidate();
 
-    private void scanFolderRecursive(File folder, List<MediaItem> items, Map<String, Integer> folderMediaCount) {
-        File[] files = folder.listFiles();
-        int mediaFilesInThisFolder = 0;
-
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    // Recursively scan subdirectories
-                    scanFolderRecursive(file, items, folderMediaCount);
-                } else if (file.isFile()) {
-                    // Just identify media files, don't generate thumbnails yet
-                    if (ThumbnailGenerator.isImageFile(file)) {
-                        MediaItem item = new MediaItem(file, MediaItem.MediaType.IMAGE);
-                        items.add(item);
-                        mediaFilesInThisFolder++;
-                    } else if (ThumbnailGenerator.isVideoFile(file)) {
-                        MediaItem item = new MediaItem(file, MediaItem.MediaType.VIDEO);
-                        items.add(item);
-                        mediaFilesInThisFolder++;
-                    }
-                }
+        // Only add folders that contain media files
+        boolean isFirstFolder = selectedFolders.isEmpty();
+        for (Map.Entry<String, Integer> entry : folderMediaCount.entrySet()) {
+            String folderPath = entry.getKey();
+            int mediaCount = entry.getValue();
+
+            // Only add if folder has media and isn't already added
+            if (mediaCount > 0) {
+                addSelectedFolder(folderPath);
             }
         }
 
-        // Only track this folder if it has media files
-        if (mediaFilesInThisFolder > 0) {
-            folderMediaCount.put(folder.getAbsolutePath(), mediaFilesInThisFolder);
+        // Add "All Folders" option if this is the first folder or if it doesn't exist yet
+        if (isFirstFolder && !selectedFolders.isEmpty()) {
+            addAllFoldersOption();
+        }
+
+        // Re-filtering is O(n), so refresh at most every SCAN_REFRESH_MILLIS while batches stream in
+        if (!scanRefreshQueued) {
+            scanRefreshQueued = true;
+            javafx.animation.PauseTransition delay = new javafx.animation.PauseTransition(
+                    javafx.util.Duration.millis(SCAN_REFRESH_MILLIS));
+            delay.setOnFinished(e -> {
+                if (scanRefreshQueued) {
+                    scanRefreshQueued = false;
+                    refreshGallery();
+                    updateHeaderInfo();
+                }
+            });
+            delay.play();
         }
     }
 
@@ -1000,20 +1442,18 @@ public class GalleryController {
     }
 
     private void updateGalleryItem(MediaItem item) {
-        // Find and update the specific card for this item (efficient update)
-        for (javafx.scene.Node node : galleryPane.getChildren()) {
-            if (node instanceof StackPane) {
-                StackPane card = (StackPane) node;
-                // Check if this card belongs to the updated item
-                if (card.getUserData() == item) {
-                    updateCardWithThumbnail(card, item, item.getThumbnail());
-                    return;
-                }
-            }
+        // Only items inside the materialized window have a card to update
+        javafx.scene.Node card = galleryPane.getCell(item);
+        if (card instanceof StackPane && card.getUserData() == item) {
+            updateCardWithThumbnail((StackPane) card, item, item.getThumbnail(), true);
         }
     }
 
-    private void updateCardWithThumbnail(StackPane card, MediaItem item, Image thumbnail) {
+    /**
+     * Show item's thumbnail (or the placeholder) in a card
+     * fadeIn animates a thumbnail that arrived while the card was on screen
+     */
+    private void updateCardWithThumbnail(StackPane card, MediaItem item, Image thumbnail, boolean fadeIn) {
         // Clear old content
         clearImageViewsRecursive(card);
         card.getChildren().clear();
@@ -1021,11 +1461,17 @@ public class GalleryController {
         // Reset card style
         card.setStyle("-fx-background-color: transparent; -fx-cursor: hand;");
 
-        // If thumbnail was reclaimed by GC, reload from cache
+        // If thumbnail was reclaimed by GC, consult the memory tier
+        // (otherwise the scheduler reloads it off the FX thread and updates the card)
         if (thumbnail == null) {
-            thumbnail = ThumbnailCache.getCachedThumbnail(item.getFile());
+            thumbnail = item.getThumbnail();
+        }
+        if (thumbnail == null) {
+            thumbnail = ThumbnailCache.getMemoryCachedThumbnail(item);
             if (thumbnail != null) {
                 item.setThumbnail(thumbnail); // Restore WeakReference
+            } else {
+                scheduleVisibleThumbnails();
             }
         }
 
@@ -1051,12 +1497,10 @@ public class GalleryController {
                 thumbnailView.setFitHeight(300 / imageRatio);
             }
 
-            // Clip to square bounds
-            javafx.scene.shape.Rectangle clip = new javafx.scene.shape.Rectangle(300, 300);
-            card.setClip(clip);
+            // Square clip is installed once when the card is created
 
             // Start invisible for fade-in animation
-            thumbnailView.setOpacity(0.0);
+            thumbnailView.setOpacity(fadeIn ? 0.0 : 1.0);
             card.getChildren().add(thumbnailView);
 
             // Add play icon overlay for videos
@@ -1069,16 +1513,21 @@ public class GalleryController {
                 playIcon.setStyle("-fx-text-fill: rgba(255,255,255,0.9); -fx-font-size: 16px;");
                 playIconContainer.getChildren().add(playIcon);
 
-                playIconContainer.setOpacity(0.0);
+                playIconContainer.setOpacity(fadeIn ? 0.0 : 1.0);
                 card.getChildren().add(playIconContainer);
             }
 
+            if (!fadeIn) {
+                card.requestLayout();
+                return;
+            }
+
             // Smooth fade-in animation
-            javafx.animation.FadeTransition fadeIn = new javafx.animation.FadeTransition(
+            javafx.animation.FadeTransition thumbnailFade = new javafx.animation.FadeTransition(
                     javafx.util.Duration.millis(200), thumbnailView);
-            fadeIn.setFromValue(0.0);
-            fadeIn.setToValue(1.0);
-            fadeIn.play();
+            thumbnailFade.setFromValue(0.0);
+            thumbnailFade.setToValue(1.0);
+            thumbnailFade.play();
 
             // Fade in play icon if present
             if (item.getType() == MediaItem.MediaType.VIDEO && card.getChildren().size() > 1) {
@@ -1111,7 +1560,10 @@ public class GalleryController {
         card.requestLayout();
     }
 
-    private StackPane createMediaCard(MediaItem item) {
+    /**
+     * Create an empty, reusable card; the item it shows is kept in userData
+     */
+    private StackPane createMediaCard() {
         // Card is exactly 300x300, gap of 1px creates thin uniform spacing
         StackPane card = new StackPane();
         card.setStyle("-fx-background-color: transparent; -fx-cursor: hand;");
@@ -1120,75 +1572,8 @@ public class GalleryController {
         card.setMaxSize(300, 300);
         card.setFocusTraversable(false);
 
-        // Store reference to item for efficient updates
-        card.setUserData(item);
-
-        // Try to get thumbnail - check cache if null
-        Image thumbnail = item.getThumbnail();
-        if (thumbnail == null) {
-            thumbnail = ThumbnailCache.getCachedThumbnail(item.getFile());
-            if (thumbnail != null) {
-                item.setThumbnail(thumbnail); // Restore from cache
-            }
-        }
-
-        if (thumbnail != null) {
-            // Thumbnail loaded - fill cell like CSS object-fit: cover
-            ImageView thumbnailView = new ImageView(thumbnail);
-            thumbnailView.setPreserveRatio(true); // Don't squeeze
-            thumbnailView.setSmooth(false); // Faster rendering, less memory
-
-            // Calculate size to fill the cell (cover behavior) - 298x298
-            double imageWidth = thumbnail.getWidth();
-            double imageHeight = thumbnail.getHeight();
-            double imageRatio = imageWidth / imageHeight;
-            double cellRatio = 1.0; // Square cell
-
-            if (imageRatio > cellRatio) {
-                // Image is wider - fit to height, overflow width
-                thumbnailView.setFitHeight(300);
-                thumbnailView.setFitWidth(300 * imageRatio);
-            } else {
-                // Image is taller - fit to width, overflow height
-                thumbnailView.setFitWidth(300);
-                thumbnailView.setFitHeight(300 / imageRatio);
-            }
-
-            // Clip to square bounds (300x300)
-            javafx.scene.shape.Rectangle clip = new javafx.scene.shape.Rectangle(300, 300);
-            card.setClip(clip);
-
-            card.getChildren().add(thumbnailView);
-
-            // Add play icon overlay for videos
-            if (item.getType() == MediaItem.MediaType.VIDEO) {
-                StackPane playIconContainer = new StackPane();
-                playIconContainer.setMaxSize(40, 40);
-                playIconContainer.setStyle("-fx-background-color: rgba(0,0,0,0.6); -fx-background-radius: 20;");
-
-                Label playIcon = new Label("▶");
-                playIcon.setStyle("-fx-text-fill: rgba(255,255,255,0.9); -fx-font-size: 16px;");
-                playIconContainer.getChildren().add(playIcon);
-
-                card.getChildren().add(playIconContainer);
-            }
-        } else {
-            // No thumbnail yet - show text message
-            card.setStyle("-fx-background-color: #2d3142; -fx-cursor: hand;");
-
-            VBox placeholderContent = new VBox(10);
-            placeholderContent.setAlignment(javafx.geometry.Pos.CENTER);
-
-            Label icon = new Label(item.getType() == MediaItem.MediaType.VIDEO ? "🎬" : "📷");
-            icon.setStyle("-fx-font-size: 48px;");
-
-            Label message = new Label("No thumbnail\ngenerated");
-            message.setStyle("-fx-text-fill: #888888; -fx-font-size: 12px; -fx-text-alignment: center;");
-            message.setTextAlignment(javafx.scene.text.TextAlignment.CENTER);
-
-            placeholderContent.getChildren().addAll(icon, message);
-            card.getChildren().add(placeholderContent);
-        }
+        // Clip to square bounds (300x300)
+        card.setClip(new javafx.scene.shape.Rectangle(300, 300));
 
         // Hover effect - subtle opacity change
         card.setOnMouseEntered(e -> {
@@ -1203,16 +1588,33 @@ public class GalleryController {
             e.consume();
         });
 
-        // Click to open fullscreen viewer
+        // Click to open fullscreen viewer for whichever item the card currently shows
         card.setOnMouseClicked(e -> {
             e.consume();
-            currentMediaIndex = displayedItems.indexOf(item);
+            if (!(card.getUserData() instanceof MediaItem)) {
+                return;
+            }
+            MediaItem item = (MediaItem) card.getUserData();
+            int index = queryEngine.positionOf(item);
+            currentMediaIndex = index >= 0 ? index : displayedItems.indexOf(item);
             showFullscreenViewer(item);
         });
 
         return card;
     }
 
+    /**
+     * Point a new or recycled card at item
+     */
+    private void bindMediaCard(StackPane card, MediaItem item) {
+        // Store reference to item for efficient updates
+        card.setUserData(item);
+        card.setOpacity(1.0); // May have been recycled mid-hover
+
+        // Memory tier only; missing thumbnails are left to the scheduler
+        updateCardWithThumbnail(card, item, item.getThumbnail(), false);
+    }
+
     private void showFullscreenViewer(MediaItem item) {
         // Save current scroll position
         savedScrollPosition = galleryScrollPane.getVvalue();
@@ -1383,6 +1785,7 @@ public class GalleryController {
                 favoriteButton.setStyle("-fx-background-color: transparent; -fx-text-fill: #cdd6f4; -fx-font-size: 20px; -fx-cursor: hand; -fx-padding: 5 10;");
                 favoriteButton.setTooltip(new Tooltip("Add to Favorites"));
             }
+            queryEngine.favoritesChanged();
             SessionManager.saveFavorites(favoritePaths);
         });
         favoriteButton.setOnMouseEntered(e -> {
@@ -1513,7 +1916,9 @@ public class GalleryController {
             }
             if (mediaController != null) {
                 mediaController.disposeCurrentPlayer();
+                mediaController.disposeStandby();
             }
+            ViewerImageCache.retainOnly(java.util.Collections.emptyList()); // Drop queued prefetches
 
             // Clear fullscreen container to prevent late UI updates
             if (fullscreenViewer != null) {
@@ -1522,8 +1927,7 @@ public class GalleryController {
                 clearImageViewsRecursive(fullscreenViewer);
             }
         } catch (Exception e) {
-            System.err.println("[closeFullscreenViewer] Cleanup error: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("[closeFullscreenViewer] Cleanup error: " + e.getMessage(), e);
         } finally {
             // Always null references and restore the gallery, even if cleanup threw
             navigationManager = null;
@@ -1587,7 +1991,7 @@ public class GalleryController {
             try {
                 mediaController.disposeCurrentPlayer();
             } catch (Exception e) {
-                System.err.println("Error disposing media controller: " + e.getMessage());
+                Log.warn("Error disposing media controller: " + e.getMessage());
             }
         }
 
@@ -1595,15 +1999,21 @@ public class GalleryController {
         try {
             clearGalleryImageViews();
         } catch (Exception e) {
-            System.err.println("Error clearing gallery: " + e.getMessage());
+            Log.warn("Error clearing gallery: " + e.getMessage());
         }
 
         // Clear media items
         try {
             mediaItems.clear();
+            itemsByPath.clear();
 
         } catch (Exception e) {
-            System.err.println("Error clearing media items: " + e.getMessage());
+            Log.warn("Error clearing media items: " + e.getMessage());
+        }
+
+        // Stop watching folders
+        if (folderWatcher != null) {
+            folderWatcher.close();
         }
 
         // Shutdown thumbnail generator (stops thread pool)
@@ -1611,7 +2021,14 @@ public class GalleryController {
             ThumbnailGenerator.shutdown();
 
         } catch (Exception e) {
-            System.err.println("Error shutting down thumbnail generator: " + e.getMessage());
+            Log.warn("Error shutting down thumbnail generator: " + e.getMessage());
+        }
+
+        // Close thumbnail pack file
+        try {
+            ThumbnailCache.shutdown();
+        } catch (Exception e) {
+            Log.warn("Error closing thumbnail cache: " + e.getMessage());
         }
 
     }
@@ -0,0 +1,157 @@
+package com.example.pixz;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Downscaling image decoder built on ImageIO readers
+ * The reader subsamples while decoding (ImageReadParam.setSourceSubsampling), so a
+ * 48 MP JPEG decoded for a 300 px thumbnail only materializes about 600 px worth of
+ * pixels instead of the full frame. The result is smoothed to the exact size and
+ * handed to JavaFX with one bulk PixelWriter call
+ *
+ * Returns null when ImageIO cannot read a file (no reader, CMYK JPEGs, ...);
+ * callers fall back to JavaFX's own loader
+ */
+public class ImageDecoder {
+    // Decode at least this many times the target size before smoothing, so the
+    // subsampling (which simply drops pixels) does not alias
+    private static final int OVERSAMPLE = 2;
+
+    private ImageDecoder() {
+    }
+
+    /**
+     * Decode an image to fit within maxWidth x maxHeight (aspect ratio preserved,
+     * never upscaled)
+     */
+    public static Image decode(File file, int maxWidth, int maxHeight) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = readerFor(input);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(input, true, true); // Skip metadata, first image only
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if (sourceWidth <= 0 || sourceHeight <= 0) {
+                    return null;
+                }
+
+                double scale = Math.min(1.0, Math.min((double) maxWidth / sourceWidth,
+                        (double) maxHeight / sourceHeight));
+                int targetWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+                int targetHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsamplingFor(sourceWidth, sourceHeight, targetWidth, targetHeight);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage decoded = reader.read(0, param);
+                return toFxImage(decoded, targetWidth, targetHeight);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null; // Unsupported variant or corrupt file
+        }
+    }
+
+    /**
+     * Decode only the given source region, scaled to targetWidth x targetHeight
+     * The reader crops and subsamples while decoding, so a tile of a huge image only
+     * materializes about the pixels it shows
+     */
+    public static Image decodeRegion(File file, Rectangle region, int targetWidth, int targetHeight) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = readerFor(input);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(region);
+                int subsampling = subsamplingFor(region.width, region.height, targetWidth, targetHeight);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage decoded = reader.read(0, param);
+                return toFxImage(decoded, targetWidth, targetHeight);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream input) {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    /**
+     * Largest subsampling step that still leaves OVERSAMPLE times the target size
+     */
+    static int subsamplingFor(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+        double ratio = Math.min((double) sourceWidth / targetWidth, (double) sourceHeight / targetHeight);
+        return Math.max(1, (int) (ratio / OVERSAMPLE));
+    }
+
+    /**
+     * Scale to the exact target size and copy into a WritableImage in one bulk write
+     */
+    private static WritableImage toFxImage(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+
+        // Halve first while far above the target: bilinear only looks at 2x2 neighbours
+        while (currentWidth / 2 >= width && currentHeight / 2 >= height
+                && (currentWidth > 2 * width || currentHeight > 2 * height)) {
+            currentWidth /= 2;
+            currentHeight /= 2;
+            current = scale(current, currentWidth, currentHeight);
+        }
+        BufferedImage scaled = scale(current, width, height);
+
+        int[] pixels = ((DataBufferInt) scaled.getRaster().getDataBuffer()).getData();
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        return image;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+}
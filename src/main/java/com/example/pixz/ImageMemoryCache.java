@@ -0,0 +1,191 @@
+package com.example.pixz;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.scene.image.Image;
+
+/**
+ * Byte-budgeted LRU cache for decoded images
+ * Hot entries are held with strong references up to the byte budget
+ * Entries evicted from the strong tier can optionally spill into a
+ * SoftReference overflow tier that the GC may reclaim under memory pressure
+ * Image cost is accounted as width * height * 4 bytes (decoded ARGB)
+ */
+public class ImageMemoryCache<K> {
+    private final long maxBytes;
+    private final boolean softOverflow;
+
+    // Access-ordered map: iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Image> strongTier = new LinkedHashMap<>(256, 0.75f, true);
+    private final LinkedHashMap<K, SoftReference<Image>> softTier = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes = 0;
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong softHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes     Budget for the strong tier in bytes
+     * @param softOverflow Keep evicted entries reachable through SoftReferences
+     */
+    public ImageMemoryCache(long maxBytes, boolean softOverflow) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.softOverflow = softOverflow;
+    }
+
+    /**
+     * Estimated decoded size of an image in bytes
+     */
+    public static long sizeOf(Image image) {
+        if (image == null) {
+            return 0;
+        }
+        return (long) Math.ceil(image.getWidth()) * (long) Math.ceil(image.getHeight()) * 4L;
+    }
+
+    /**
+     * Get an image, promoting soft-tier hits back into the strong tier
+     * Returns null on miss
+     */
+    public synchronized Image get(K key) {
+        if (key == null) {
+            return null;
+        }
+
+        Image image = strongTier.get(key);
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+
+        SoftReference<Image> softRef = softTier.remove(key);
+        if (softRef != null) {
+            image = softRef.get();
+            if (image != null) {
+                softHits.incrementAndGet();
+                putStrong(key, image);
+                return image;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Check for an entry without touching LRU order or statistics
+     */
+    public synchronized boolean contains(K key) {
+        if (strongTier.containsKey(key)) {
+            return true;
+        }
+        SoftReference<Image> softRef = softTier.get(key);
+        return softRef != null && softRef.get() != null;
+    }
+
+    /**
+     * Insert or replace an image
+     */
+    public synchronized void put(K key, Image image) {
+        if (key == null || image == null) {
+            return;
+        }
+        softTier.remove(key);
+        putStrong(key, image);
+    }
+
+    private void putStrong(K key, Image image) {
+        Image previous = strongTier.put(key, image);
+        if (previous != null) {
+            currentBytes -= sizeOf(previous);
+        }
+        currentBytes += sizeOf(image);
+        trimToBudget();
+    }
+
+    /**
+     * Evict least recently used entries until the strong tier fits the budget
+     */
+    private void trimToBudget() {
+        Iterator<Map.Entry<K, Image>> it = strongTier.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<K, Image> eldest = it.next();
+            it.remove();
+            currentBytes -= sizeOf(eldest.getValue());
+            evictions.incrementAndGet();
+
+            if (softOverflow) {
+                softTier.put(eldest.getKey(), new SoftReference<>(eldest.getValue()));
+            }
+        }
+
+        // Drop soft entries whose referents were already reclaimed
+        if (softOverflow && softTier.size() > strongTier.size() * 4 + 256) {
+            softTier.values().removeIf(ref -> ref.get() == null);
+        }
+    }
+
+    /**
+     * Remove an entry from both tiers
+     */
+    public synchronized void remove(K key) {
+        Image removed = strongTier.remove(key);
+        if (removed != null) {
+            currentBytes -= sizeOf(removed);
+        }
+        softTier.remove(key);
+    }
+
+    /**
+     * Remove all entries (statistics are kept)
+     */
+    public synchronized void clear() {
+        strongTier.clear();
+        softTier.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int size() {
+        return strongTier.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getSoftHitCount() {
+        return softHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ImageMemoryCache[entries=" + size()
+                + ", bytes=" + getCurrentBytes() + "/" + maxBytes
+                + ", hits=" + hits.get()
+                + ", softHits=" + softHits.get()
+                + ", misses=" + misses.get()
+                + ", evictions=" + evictions.get() + "]";
+    }
+}
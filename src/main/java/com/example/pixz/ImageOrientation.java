@@ -0,0 +1,81 @@
+package com.example.pixz;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Applies EXIF orientations (1-8, including the mirrored 2/4/5/7) as a pixel
+ * array transform, so rotated thumbnails are produced on the calling worker
+ * thread instead of through an FX-thread ImageView snapshot
+ */
+public class ImageOrientation {
+
+    private ImageOrientation() {
+    }
+
+    /**
+     * Return image displayed upright for an EXIF orientation (the same image for 1
+     * or unknown values); image must be fully loaded
+     */
+    public static Image apply(Image image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] source = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), source, 0, width);
+
+        int[] target = transform(source, width, height, orientation);
+        boolean swapsAxes = orientation >= 5;
+        int targetWidth = swapsAxes ? height : width;
+        int targetHeight = swapsAxes ? width : height;
+        WritableImage result = new WritableImage(targetWidth, targetHeight);
+        result.getPixelWriter().setPixels(0, 0, targetWidth, targetHeight, PixelFormat.getIntArgbPreInstance(),
+                target, 0, targetWidth);
+        return result;
+    }
+
+    /**
+     * Transform a row-major width x height pixel array; orientations 5-8 swap the
+     * axes (the result is height pixels wide)
+     */
+    static int[] transform(int[] source, int width, int height, int orientation) {
+        int[] target = new int[source.length];
+        int index = 0; // Source pixels are visited in memory order
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, index++) {
+                int destination;
+                switch (orientation) {
+                    case 2: // Mirrored horizontally
+                        destination = y * width + (width - 1 - x);
+                        break;
+                    case 3: // Rotated 180
+                        destination = (height - 1 - y) * width + (width - 1 - x);
+                        break;
+                    case 4: // Mirrored vertically
+                        destination = (height - 1 - y) * width + x;
+                        break;
+                    case 5: // Transposed (mirror + rotate 270 CW)
+                        destination = x * height + y;
+                        break;
+                    case 6: // Rotate 90 CW
+                        destination = x * height + (height - 1 - y);
+                        break;
+                    case 7: // Transversed (mirror + rotate 90 CW)
+                        destination = (width - 1 - x) * height + (height - 1 - y);
+                        break;
+                    case 8: // Rotate 270 CW
+                        destination = (width - 1 - x) * height + y;
+                        break;
+                    default:
+                        destination = index;
+                        break;
+                }
+                target[destination] = source[index];
+            }
+        }
+        return target;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.pixz;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Asynchronous, level-gated application log
+ * Callers only append to an in-memory ring buffer; a daemon thread formats the
+ * entries and writes them to ~/.wingallery/logs/pixz.log (warnings and errors are
+ * echoed to stderr). A disabled level costs one comparison, so guard expensive
+ * messages with isDebugEnabled()
+ *
+ * Configuration (system properties):
+ *   pixz.log.level - DEBUG, INFO, WARN, ERROR or OFF (default INFO)
+ *   pixz.log.dir   - log directory (default ~/.wingallery/logs)
+ *
+ * When the buffer is full the oldest entries are overwritten and counted as dropped
+ */
+public final class Log {
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static final String APP_DIR_NAME = ".wingallery";
+    private static final String LOG_FILE_NAME = "pixz.log";
+    private static final long MAX_FILE_SIZE = 5L * 1024 * 1024; // Rolled over to pixz.log.1 at startup
+    private static final int CAPACITY = 4096; // Entries (power of two)
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    /**
+     * Buffered log entry; formatted on the writer thread
+     */
+    private static final class Entry {
+        final long time;
+        final Level level;
+        final String thread;
+        final String message;
+        final Throwable error;
+
+        Entry(long time, Level level, String thread, String message, Throwable error) {
+            this.time = time;
+            this.level = level;
+            this.thread = thread;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    private static final Level threshold = parseLevel(System.getProperty("pixz.log.level"));
+
+    // Ring buffer, guarded by the Log class lock
+    private static final Entry[] ring = new Entry[CAPACITY];
+    private static long head; // Next entry to write out
+    private static long tail; // Next free slot
+    private static long dropped;
+
+    private static final Object writeLock = new Object(); // Held while writing the file
+    private static BufferedWriter out; // Guarded by writeLock
+    private static boolean fileUnavailable;
+
+    static {
+        Thread writer = new Thread(Log::writeLoop, "pixz-log-writer");
+        writer.setDaemon(true);
+        if (threshold != Level.OFF) {
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "pixz-log-flush"));
+        }
+    }
+
+    private Log() {
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message, null);
+    }
+
+    public static void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    public static void log(Level level, String message, Throwable error) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), level, Thread.currentThread().getName(), message, error);
+        synchronized (Log.class) {
+            if (tail - head == CAPACITY) {
+                head++; // Overwrite the oldest entry
+                dropped++;
+            }
+            ring[(int) (tail++ & (CAPACITY - 1))] = entry;
+            if (tail - head == CAPACITY / 2 || level == Level.ERROR) {
+                Log.class.notifyAll(); // Wake the writer early
+            }
+        }
+    }
+
+    /**
+     * Write out everything buffered so far (blocks the caller; used at shutdown)
+     */
+    public static void flush() {
+        synchronized (writeLock) {
+            drain();
+        }
+    }
+
+    private static void writeLoop() {
+        while (true) {
+            try {
+                synchronized (Log.class) {
+                    if (tail == head) {
+                        Log.class.wait(FLUSH_INTERVAL_MS);
+                    }
+                }
+                synchronized (writeLock) {
+                    drain();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Keep logging alive; the entries that failed are lost
+            }
+        }
+    }
+
+    /**
+     * Take all buffered entries and write them (writer lock held)
+     */
+    private static void drain() {
+        Entry[] batch;
+        long lost;
+        synchronized (Log.class) {
+            int count = (int) (tail - head);
+            if (count == 0 && dropped == 0) {
+                return;
+            }
+            batch = new Entry[count];
+            for (int i = 0; i < count; i++) {
+                int slot = (int) (head++ & (CAPACITY - 1));
+                batch[i] = ring[slot];
+                ring[slot] = null;
+            }
+            lost = dropped;
+            dropped = 0;
+        }
+
+        BufferedWriter file = openFile();
+        StringBuilder line = new StringBuilder(128);
+        try {
+            if (lost > 0 && file != null) {
+                file.write("... " + lost + " log entries dropped (buffer full)");
+                file.newLine();
+            }
+            for (Entry entry : batch) {
+                line.setLength(0);
+                TIME_FORMAT.formatTo(Instant.ofEpochMilli(entry.time), line);
+                line.append(' ').append(entry.level).append(" [").append(entry.thread).append("] ")
+                        .append(entry.message);
+                if (entry.error != null) {
+                    StringWriter trace = new StringWriter();
+                    entry.error.printStackTrace(new PrintWriter(trace));
+                    line.append(System.lineSeparator()).append(trace.toString().trim());
+                }
+                String text = line.toString();
+                if (entry.level.compareTo(Level.WARN) >= 0) {
+                    System.err.println(text);
+                }
+                if (file != null) {
+                    file.write(text);
+                    file.newLine();
+                }
+            }
+            if (file != null) {
+                file.flush();
+            }
+        } catch (IOException e) {
+            closeFile();
+            fileUnavailable = true; // Console only from now on
+            System.err.println("Log file unavailable: " + e.getMessage());
+        }
+    }
+
+    private static BufferedWriter openFile() {
+        if (out != null || fileUnavailable) {
+            return out;
+        }
+        try {
+            String configured = System.getProperty("pixz.log.dir");
+            Path dir = configured != null ? Paths.get(configured)
+                    : Paths.get(System.getProperty("user.home"), APP_DIR_NAME, "logs");
+            Files.createDirectories(dir);
+            Path file = dir.resolve(LOG_FILE_NAME);
+            if (Files.exists(file) && Files.size(file) > MAX_FILE_SIZE) {
+                Files.move(file, dir.resolve(LOG_FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            }
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            fileUnavailable = true;
+            System.err.println("Log file unavailable: " + e.getMessage());
+        }
+        return out;
+    }
+
+    private static void closeFile() {
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            // Already failing
+        }
+        out = null;
+    }
+
+    private static Level parseLevel(String value) {
+        if (value != null) {
+            try {
+                return Level.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown log level " + value + ", using INFO");
+            }
+        }
+        return Level.INFO;
+    }
+}
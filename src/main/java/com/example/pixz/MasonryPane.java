@@ -1,18 +1,53 @@
 package com.example.pixz;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import javafx.geometry.Bounds;
 import javafx.scene.Node;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.Pane;
 
 /**
  * Custom layout pane that arranges children in a uniform grid
+ *
+ * In virtualized mode (setVirtualItems) positions are computed arithmetically for
+ * the whole list, but cells exist only for the rows inside the bound ScrollPane's
+ * viewport plus OVERSCAN_ROWS; cells leaving that window are unbound and reused
  */
 public class MasonryPane extends Pane {
     private static final double CELL_SIZE = 300; // Size of each thumbnail
     private static final double GAP = 2; // 2px gap between items
+    private static final int OVERSCAN_ROWS = 2; // Rows kept above and below the viewport
     private int numColumns = 3;
 
+    /**
+     * Creates and (re)binds cells for virtualized mode
+     */
+    public interface CellBinder<T> {
+        /** Create an empty cell (called only when the pool is empty) */
+        Node createCell();
+
+        /** Show item in a fresh or recycled cell */
+        void bindCell(Node cell, T item);
+
+        /** Release item-specific state before the cell is pooled */
+        void unbindCell(Node cell, T item);
+    }
+
+    // Virtualized mode state (null items means classic mode: every child is laid out)
+    private List<Object> virtualItems = null;
+    private CellBinder<Object> cellBinder = null;
+    private final Map<Object, Node> activeCells = new HashMap<>();
+    private final ArrayDeque<Node> cellPool = new ArrayDeque<>();
+    private ScrollPane scrollPane = null;
+
     public MasonryPane() {
         super();
         // Set black background so gaps appear as thin lines
@@ -32,10 +67,118 @@ public class MasonryPane extends Pane {
         }
     }
 
+    /**
+     * Track the ScrollPane this pane is the content of, so virtualized mode can
+     * follow its viewport
+     */
+    public void bindToScrollPane(ScrollPane pane) {
+        this.scrollPane = pane;
+        pane.vvalueProperty().addListener((obs, oldVal, newVal) -> {
+            if (virtualItems != null) {
+                requestLayout();
+            }
+        });
+        pane.viewportBoundsProperty().addListener((obs, oldVal, newVal) -> {
+            if (virtualItems != null) {
+                requestLayout();
+            }
+        });
+    }
+
+    /**
+     * Switch to virtualized mode and show items (the list is copied)
+     * Cells of items that stay inside the window are kept as they are
+     * Pass null to return to classic mode
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void setVirtualItems(List<T> items, CellBinder<? super T> binder) {
+        if (items == null) {
+            releaseAllCells();
+            getChildren().removeAll(cellPool);
+            cellPool.clear();
+            virtualItems = null;
+            cellBinder = null;
+            requestLayout();
+            return;
+        }
+
+        if (virtualItems == null) {
+            getChildren().clear(); // Classic-mode children are not recycled
+        }
+        if (binder != cellBinder) {
+            // Pooled cells were built by the previous binder
+            releaseAllCells();
+            getChildren().removeAll(cellPool);
+            cellPool.clear();
+        }
+        virtualItems = new ArrayList<>(items);
+        cellBinder = (CellBinder<Object>) binder;
+        setPrefHeight(computeGridHeight(virtualItems.size()));
+        requestLayout();
+    }
+
+    /**
+     * Cell currently showing item, or null if it is outside the materialized window
+     */
+    public Node getCell(Object item) {
+        return activeCells.get(item);
+    }
+
+    /**
+     * Number of cells bound to items (visible rows plus overscan)
+     */
+    public int getActiveCellCount() {
+        return activeCells.size();
+    }
+
+    /**
+     * First row intersecting the viewport
+     */
+    public int getFirstVisibleRow() {
+        return Math.max(0, rowAt(getViewportTop()));
+    }
+
+    /**
+     * Last row intersecting the viewport (may be past the last row of items)
+     */
+    public int getLastVisibleRow() {
+        return Math.max(getFirstVisibleRow(), rowAt(getViewportTop() + getViewportHeight()));
+    }
+
+    public double getViewportHeight() {
+        if (scrollPane == null || scrollPane.getViewportBounds() == null) {
+            return getHeight();
+        }
+        return scrollPane.getViewportBounds().getHeight();
+    }
+
+    /**
+     * Scroll offset in this pane's coordinates, derived from vvalue so it is
+     * valid before the next layout pass
+     */
+    private double getViewportTop() {
+        if (scrollPane == null) {
+            return 0;
+        }
+        Bounds viewport = scrollPane.getViewportBounds();
+        if (viewport == null) {
+            return 0;
+        }
+        double range = scrollPane.getVmax() - scrollPane.getVmin();
+        double fraction = range > 0 ? (scrollPane.getVvalue() - scrollPane.getVmin()) / range : 0;
+        double contentHeight = virtualItems != null ? computeGridHeight(virtualItems.size()) : getHeight();
+        return fraction * Math.max(0, contentHeight - viewport.getHeight());
+    }
+
     @Override
     protected void layoutChildren() {
         calculateColumns();
 
+        if (virtualItems != null) {
+            layoutVirtualCells();
+            return;
+        }
+
         List<Node> managed = getManagedChildren();
         if (managed.isEmpty()) {
             return;
@@ -86,6 +229,109 @@ public class MasonryPane extends Pane {
         setPrefHeight(maxHeight - GAP + topInset + getInsets().getBottom());
     }
 
+    private double getLeftOffset() {
+        double gridWidth = numColumns * (CELL_SIZE + GAP) - GAP;
+        double availableWidth = getWidth() - getInsets().getLeft() - getInsets().getRight();
+        return getInsets().getLeft() + Math.max(0, (availableWidth - gridWidth) / 2);
+    }
+
+    /**
+     * Bind cells for the rows in the viewport window, release the rest, and place
+     * them at their arithmetic grid positions
+     */
+    private void layoutVirtualCells() {
+        int count = virtualItems.size();
+        int rows = (count + numColumns - 1) / numColumns;
+        int firstRow = Math.max(0, getFirstVisibleRow() - OVERSCAN_ROWS);
+        int lastRow = Math.min(rows - 1, getLastVisibleRow() + OVERSCAN_ROWS);
+        int fromIndex = Math.min(count, firstRow * numColumns);
+        int toIndex = Math.max(fromIndex, Math.min(count, (lastRow + 1) * numColumns));
+
+        // Release cells whose items left the window
+        Set<Object> window = new HashSet<>(virtualItems.subList(fromIndex, toIndex));
+        Iterator<Map.Entry<Object, Node>> it = activeCells.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Object, Node> entry = it.next();
+            if (!window.contains(entry.getKey())) {
+                it.remove();
+                releaseCell(entry.getValue(), entry.getKey());
+            }
+        }
+
+        double leftOffset = getLeftOffset();
+        double topInset = getInsets().getTop();
+        for (int i = fromIndex; i < toIndex; i++) {
+            Object item = virtualItems.get(i);
+            Node cell = activeCells.get(item);
+            if (cell == null) {
+                cell = acquireCell();
+                cellBinder.bindCell(cell, item);
+                activeCells.put(item, cell);
+            }
+            double x = leftOffset + (i % numColumns) * (CELL_SIZE + GAP);
+            double y = topInset + (i / numColumns) * (CELL_SIZE + GAP);
+            cell.resizeRelocate(x, y, CELL_SIZE, CELL_SIZE);
+        }
+
+        setPrefHeight(computeGridHeight(count));
+    }
+
+    private Node acquireCell() {
+        Node cell = cellPool.poll();
+        if (cell == null) {
+            cell = cellBinder.createCell();
+            getChildren().add(cell);
+        }
+        cell.setVisible(true);
+        return cell;
+    }
+
+    private void releaseCell(Node cell, Object item) {
+        cellBinder.unbindCell(cell, item);
+        cell.setVisible(false); // Pooled cells stay in the scene graph, hidden
+        cellPool.push(cell);
+    }
+
+    private void releaseAllCells() {
+        for (Map.Entry<Object, Node> entry : activeCells.entrySet()) {
+            releaseCell(entry.getValue(), entry.getKey());
+        }
+        activeCells.clear();
+    }
+
+    /**
+     * Number of columns for the current width
+     */
+    public int getColumnCount() {
+        calculateColumns();
+        return numColumns;
+    }
+
+    /**
+     * Vertical distance between the tops of two consecutive rows
+     */
+    public double getRowPitch() {
+        return CELL_SIZE + GAP;
+    }
+
+    /**
+     * Row containing the given y coordinate (may be negative or past the last row)
+     */
+    public int rowAt(double y) {
+        return (int) Math.floor((y - getInsets().getTop()) / (CELL_SIZE + GAP));
+    }
+
+    /**
+     * Height the grid will need for itemCount items, including insets
+     * Lets callers do viewport math before the next layout pass
+     */
+    public double computeGridHeight(int itemCount) {
+        int columns = getColumnCount();
+        int rows = (itemCount + columns - 1) / columns;
+        double gridHeight = rows > 0 ? rows * (CELL_SIZE + GAP) - GAP : 0;
+        return gridHeight + getInsets().getTop() + getInsets().getBottom();
+    }
+
     @Override
     protected double computePrefWidth(double height) {
         return numColumns * (CELL_SIZE + GAP) - GAP + getInsets().getLeft() + getInsets().getRight();
@@ -0,0 +1,232 @@
+package com.example.pixz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Persistent catalog of the media library (~/.wingallery/media-catalog.bin)
+ * Lets startup populate the gallery from one sequential file read instead of
+ * walking every saved folder; the tree is reconciled in the background afterwards
+ *
+ * Format: magic, version, entry count, then per entry
+ * path, type, size, mtime, thumbnail key, metadata flag and (if set)
+ * rotation, orientation, width, height, capture time, duration
+ * Older catalogs are still read, but their metadata is dropped (version 1 never
+ * filled it in, version 2 lacks the orientation) and extracted again on demand
+ */
+public class MediaCatalog {
+    private static final String APP_DIR_NAME = ".wingallery";
+    private static final String CATALOG_FILE_NAME = "media-catalog.bin";
+    private static final int MAGIC = 0x50585A43; // "PXZC"
+    private static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Background saves: one writer thread, only the latest snapshot is written
+    private static final ExecutorService saveExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "media-catalog-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicReference<List<MediaItem>> pendingSave = new AtomicReference<>();
+
+    /**
+     * Result of comparing the cataloged items with a fresh scan
+     */
+    public static final class Diff {
+        private final List<MediaItem> added = new ArrayList<>();
+        private final List<MediaItem> removed = new ArrayList<>();
+        private final List<MediaItem> changed = new ArrayList<>(); // Scanned replacements
+
+        public List<MediaItem> getAdded() {
+            return added;
+        }
+
+        public List<MediaItem> getRemoved() {
+            return removed;
+        }
+
+        public List<MediaItem> getChanged() {
+            return changed;
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+    }
+
+    private static Path getCatalogFilePath() {
+        Path appDir = Paths.get(System.getProperty("user.home"), APP_DIR_NAME);
+        try {
+            if (!Files.exists(appDir)) {
+                Files.createDirectories(appDir);
+            }
+        } catch (IOException e) {
+            // Failed to create directory
+        }
+        return appDir.resolve(CATALOG_FILE_NAME);
+    }
+
+    /**
+     * Load the catalog; returns an empty list if it is missing, outdated or corrupt
+     * Does not touch the cataloged files themselves
+     */
+    public static List<MediaItem> load() {
+        Path catalogFile = getCatalogFilePath();
+        if (!Files.exists(catalogFile)) {
+            return new ArrayList<>();
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(catalogFile), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                return new ArrayList<>();
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                return new ArrayList<>();
+            }
+
+            int count = in.readInt();
+            List<MediaItem> items = new ArrayList<>(Math.max(0, count));
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                MediaItem.MediaType type = in.readByte() == 1 ? MediaItem.MediaType.VIDEO
+                        : MediaItem.MediaType.IMAGE;
+                File file = new File(path);
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                if (version == 1) {
+                    in.skipBytes(12); // Unused width, height, rotation
+                }
+                String key = in.readUTF();
+                MediaItem item = new MediaItem(file, type, new MediaItem.FileSnapshot(path,
+                        parentPathOf(file), size, lastModified,
+                        ThumbnailCache.isCurrentCacheKey(key) ? key : null)); // Older schemes are rehashed
+                if (version == 2 && in.readBoolean()) {
+                    in.skipBytes(28); // Rotation, width, height, capture time, duration
+                } else if (version == VERSION && in.readBoolean()) {
+                    item.setMetadata(new MediaMetadata(in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                            in.readLong(), in.readLong()));
+                }
+                items.add(item);
+            }
+            return items;
+        } catch (EOFException e) {
+            Log.warn("Media catalog is truncated, ignoring it");
+            return new ArrayList<>();
+        } catch (IOException e) {
+            Log.warn("Failed to load media catalog: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Write the catalog (temp file + atomic rename, so a crash never leaves it half written)
+     */
+    public static synchronized void save(Collection<MediaItem> items) {
+        Path catalogFile = getCatalogFilePath();
+        Path tempFile = catalogFile.resolveSibling(CATALOG_FILE_NAME + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(items.size());
+            for (MediaItem item : items) {
+                MediaItem.FileSnapshot snapshot = item.getSnapshot();
+                String key = snapshot.getCacheKey(); // Computed once, then kept on the snapshot
+                out.writeUTF(snapshot.getPath());
+                out.writeByte(item.getType() == MediaItem.MediaType.VIDEO ? 1 : 0);
+                out.writeLong(snapshot.getSize());
+                out.writeLong(snapshot.getLastModified());
+                out.writeUTF(key != null ? key : "");
+                MediaMetadata metadata = item.getMetadata();
+                out.writeBoolean(metadata != null);
+                if (metadata != null) {
+                    out.writeInt(metadata.getRotation());
+                    out.writeInt(metadata.getOrientation());
+                    out.writeInt(metadata.getWidth());
+                    out.writeInt(metadata.getHeight());
+                    out.writeLong(metadata.getCaptureTime());
+                    out.writeLong(metadata.getDurationMillis());
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Failed to save media catalog: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(tempFile, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.move(tempFile, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                Log.warn("Failed to replace media catalog: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Save a snapshot on the background writer
+     * Snapshots queued while a save is pending replace it, so bursts cost one write
+     */
+    public static void saveAsync(List<MediaItem> snapshot) {
+        if (pendingSave.getAndSet(snapshot) == null) {
+            saveExecutor.execute(() -> {
+                List<MediaItem> latest = pendingSave.getAndSet(null);
+                if (latest != null) {
+                    save(latest);
+                }
+            });
+        }
+    }
+
+    private static String parentPathOf(File file) {
+        String parent = file.getParent();
+        return parent != null ? parent : "";
+    }
+
+    /**
+     * Compare known items with a fresh scan of the same folders by path
+     * An item counts as changed when its size or modification time differs
+     */
+    public static Diff diff(Collection<MediaItem> known, Collection<MediaItem> scanned) {
+        Diff diff = new Diff();
+
+        Map<String, MediaItem> knownByPath = new HashMap<>(known.size() * 2);
+        for (MediaItem item : known) {
+            knownByPath.put(item.getPath(), item);
+        }
+
+        for (MediaItem item : scanned) {
+            MediaItem previous = knownByPath.remove(item.getPath());
+            if (previous == null) {
+                diff.added.add(item);
+            } else if (!previous.getSnapshot().sameVersion(item.getSnapshot())) {
+                diff.changed.add(item);
+            }
+        }
+
+        // Whatever was not seen again is gone
+        diff.removed.addAll(knownByPath.values());
+        return diff;
+    }
+}
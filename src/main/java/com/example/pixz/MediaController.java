@@ -6,6 +6,8 @@ import javafx.animation.KeyFrame;
 import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaException;
 import javafx.scene.media.MediaPlayer;
@@ -13,7 +15,8 @@ import javafx.scene.media.MediaView;
 import javafx.util.Duration;
 
 /**
- * MediaController — owns and manages the single active MediaPlayer instance.
+ * MediaController — owns and manages the single active MediaPlayer instance
+ * (plus one paused standby player for the next video).
  * Handles lifecycle, loading, playback control, volume, and freeze detection.
  */
 public class MediaController {
@@ -26,8 +29,27 @@ public class MediaController {
     private final MediaView mediaView;
     private MediaPlayer currentPlayer;
     private boolean isLoading = false;
-    private volatile boolean isDisposed = false;
-    private volatile long activeSessionId = 0;  // Track which session this player belongs to
+
+    // Session token: bumped by every load and dispose, so callbacks of a disposed
+    // player or a superseded load see a stale token and do nothing
+    private volatile long loadToken = 0;
+
+    // Paused player for the video likely to be opened next (FX thread only)
+    private MediaPlayer standbyPlayer;
+    private File standbyFile;
+
+    // A new pipeline right after disposing the previous one can race its teardown:
+    // only then is the rest of this settle time waited (-Dpixz.video.settleMs=<n>)
+    private static final long SETTLE_MS = Long.getLong("pixz.video.settleMs", 150);
+    private static final long LOAD_TIMEOUT_MS = 4000;
+    private long lastDisposeNanos = 0; // 0 = no player disposed yet
+    private PauseTransition loadTimeout;
+
+    // Time-to-first-frame per load, cold pipeline vs promoted standby (FX thread)
+    private long coldLoads = 0;
+    private long coldTotalMillis = 0;
+    private long standbyLoads = 0;
+    private long standbyTotalMillis = 0;
     
     // Watchdog for freeze detection
     private Timeline watchdog;
@@ -43,10 +65,14 @@ public class MediaController {
     /**
      * Load a new video. Disposes previous player automatically.
      * isLoading guard: if already loading, the call is ignored.
-     * Adds 150ms PauseTransition delay before creating new player (pipeline safety).
+     * Event driven: a standby player prepared for the same file is promoted, otherwise
+     * a new player is created right away (after the rest of SETTLE_MS only if another
+     * player was disposed just before), and playback starts as soon as it is READY.
+     * Playback starts at startSeconds (the resume position; 0 or near the end starts over).
      */
     public void loadVideo(
             File videoFile,
+            double startSeconds,
             Runnable onReady,
             TriConsumer<String, String, String> onError,
             Runnable onStalled,
@@ -59,122 +85,289 @@ public class MediaController {
         
         disposeCurrentPlayer();
         isLoading = true;
-        isDisposed = false; // Reset disposed flag for new load
-        activeSessionId = System.currentTimeMillis(); // New session for this load
-        final long currentSessionId = activeSessionId;
-        final long loadStartTime = System.currentTimeMillis();
+        final long token = ++loadToken;
+        final long loadStart = System.nanoTime();
         mediaView.setMediaPlayer(null);
         
         // Hard timeout recovery: if still loading after 4 seconds, trigger error
-        Thread timeoutThread = new Thread(() -> {
-            try {
-                Thread.sleep(4000);
-                
-                if (isLoading && !isDisposed && activeSessionId == currentSessionId) {
-                    Platform.runLater(() -> {
-                        if (isLoading && !isDisposed) {
-                            isLoading = false;
-                            disposeCurrentPlayer();
-                            onError.accept(
-                                "Playback Timeout",
-                                "Video failed to initialize within 4 seconds. The file may be corrupted or use an unsupported codec.",
-                                videoFile.getAbsolutePath()
-                            );
-                        }
-                    });
-                }
-            } catch (InterruptedException ignored) {
+        loadTimeout = new PauseTransition(Duration.millis(LOAD_TIMEOUT_MS));
+        loadTimeout.setOnFinished(e -> {
+            if (isLoading && isCurrent(token)) {
+                isLoading = false;
+                disposeCurrentPlayer();
+                onError.accept(
+                    "Playback Timeout",
+                    "Video failed to initialize within 4 seconds. The file may be corrupted or use an unsupported codec.",
+                    videoFile.getAbsolutePath()
+                );
             }
         });
-        timeoutThread.setDaemon(true);
-        timeoutThread.start();
+        loadTimeout.play();
+
+        // Warm start: the standby pipeline is already initialized
+        MediaPlayer standby = takeStandby(videoFile);
+        if (standby != null) {
+            startPlayer(standby, true, videoFile, startSeconds, token, loadStart, onReady, onError, onStalled, onPlaying);
+            return;
+        }
 
-        // 150ms delay for pipeline safety
-        PauseTransition delay = new PauseTransition(Duration.millis(150));
-        delay.setOnFinished(e -> {
+        Runnable create = () -> {
+            if (!isCurrent(token)) return;
             try {
                 Media media = new Media(videoFile.toURI().toString());
                 MediaPlayer player = new MediaPlayer(media);
-                currentPlayer = player;
-                
-                // Force pipeline initialization (helps with GPU decode stability)
-                player.setRate(1.0);
-                player.setVolume(player.getVolume());
-
-                // FIX #2: Stalled/Playing callbacks with disposed check
-                player.setOnStalled(() -> {
-                    if (isDisposed || activeSessionId != currentSessionId) return;
-                    Platform.runLater(onStalled);
-                });
-                player.setOnPlaying(() -> {
-                    if (isDisposed || activeSessionId != currentSessionId) return;
-                    Platform.runLater(onPlaying);
-                });
-
-                // Ready callback with first-frame lag fix
-                player.setOnReady(() -> {
-                    if (isDisposed || activeSessionId != currentSessionId) return;
-                    
-                    Platform.runLater(() -> {
-                        if (isDisposed || activeSessionId != currentSessionId) return;
-                        
-                        // Attach MediaView BEFORE play
-                        mediaView.setMediaPlayer(player);
-                        isLoading = false;
-                        
-                        // Force initial frame render (critical for first-frame lag)
-                        player.seek(Duration.ZERO);
-                        
-                        // Small delay before play to let renderer stabilize
-                        PauseTransition playDelay = new PauseTransition(Duration.millis(120));
-                        playDelay.setOnFinished(evt -> {
-                            if (isDisposed || activeSessionId != currentSessionId) return;
-                            
-                            player.play();
-                            onReady.run();
-                            startWatchdog();
-                        });
-                        playDelay.play();
-                    });
-                });
-
-                // FIX #2: Ignore early errors before player is ready
-                player.setOnError(() -> {
-                    if (isDisposed || activeSessionId != currentSessionId) return;
-                    
-                    // Only process error if player was actually initialized (not in early loading phase)
-                    if (player.getStatus() == MediaPlayer.Status.UNKNOWN) {
-                        // Ignore early initialization errors
-                        return;
-                    }
-                    
-                    MediaException error = player.getError();
-                    String errorMessage = error != null ? error.getMessage() : "Unknown error";
-                    if (error != null) {
-                        error.printStackTrace();
-                    }
+                startPlayer(player, false, videoFile, startSeconds, token, loadStart, onReady, onError, onStalled, onPlaying);
+            } catch (Exception ex) {
+                isLoading = false;
+                onError.accept("Cannot Load Video", "Failed to create media player: " + ex.getMessage(), videoFile.getAbsolutePath());
+                Log.error("Failed to create media player for " + videoFile.getName(), ex);
+            }
+        };
+        long settleMillis = settleMillis();
+        if (settleMillis <= 0) {
+            create.run();
+        } else {
+            PauseTransition settle = new PauseTransition(Duration.millis(settleMillis));
+            settle.setOnFinished(e -> create.run());
+            settle.play();
+        }
+    }
+
+    /**
+     * Rest of the settle time since a player (active or standby) was last disposed
+     */
+    private long settleMillis() {
+        return lastDisposeNanos == 0 ? 0 : SETTLE_MS - (System.nanoTime() - lastDisposeNanos) / 1_000_000;
+    }
+
+    private boolean isCurrent(long token) {
+        return token == loadToken;
+    }
+
+    /**
+     * Make player the active player and start playback as soon as it is READY
+     * (immediately for a standby player that is ready already)
+     */
+    private void startPlayer(
+            MediaPlayer player,
+            boolean standby,
+            File videoFile,
+            double startSeconds,
+            long token,
+            long loadStart,
+            Runnable onReady,
+            TriConsumer<String, String, String> onError,
+            Runnable onStalled,
+            Runnable onPlaying
+    ) {
+        currentPlayer = player;
 
-                    boolean isCodecError = errorMessage.contains("ERROR_MEDIA_INVALID") ||
-                            errorMessage.contains("ERROR_MEDIA_UNSUPPORTED") ||
-                            errorMessage.contains("MEDIA_UNSUPPORTED");
+        // Force pipeline initialization (helps with GPU decode stability)
+        player.setRate(1.0);
+        player.setVolume(player.getVolume());
 
-                    String title = isCodecError ? "Unsupported Video Format" : "Cannot Play Video";
-                    String detail = isCodecError
-                            ? "This video uses a codec JavaFX cannot decode (likely not H.264).\nTry converting to H.264 MP4."
-                            : "The video may be corrupt, locked, or in an unsupported container.\nError: " + errorMessage;
-                    String filePath = videoFile.getAbsolutePath();
+        // FIX #2: Stalled/Playing callbacks with session check
+        player.setOnStalled(() -> {
+            if (!isCurrent(token)) return;
+            Platform.runLater(onStalled);
+        });
+        player.setOnPlaying(() -> {
+            if (!isCurrent(token)) return;
+            Platform.runLater(onPlaying);
+        });
 
-                    isLoading = false;
-                    onError.accept(title, detail, filePath);
-                });
+        Runnable ready = () -> {
+            if (!isCurrent(token)) return;
 
-            } catch (Exception ex) {
-                isLoading = false;
-                onError.accept("Cannot Load Video", "Failed to create media player: " + ex.getMessage(), videoFile.getAbsolutePath());
-                ex.printStackTrace();
+            // Attach MediaView BEFORE play
+            mediaView.setMediaPlayer(player);
+            isLoading = false;
+            if (loadTimeout != null) {
+                loadTimeout.stop();
+            }
+
+            // A standby player already sits at its resume position
+            Duration start = startPosition(player, startSeconds);
+            if (!standby || Math.abs(player.getCurrentTime().toSeconds() - start.toSeconds()) > 0.5) {
+                player.seek(start);
+            }
+
+            trackFirstFrame(player, token, loadStart, standby, videoFile);
+            player.play();
+            onReady.run();
+            startWatchdog(token);
+        };
+        MediaPlayer.Status status = player.getStatus();
+        if (status == MediaPlayer.Status.READY || status == MediaPlayer.Status.PAUSED) {
+            ready.run();
+        } else {
+            player.setOnReady(() -> {
+                if (!isCurrent(token)) return;
+                Platform.runLater(ready);
+            });
+        }
+
+        // FIX #2: Ignore early errors before player is ready
+        player.setOnError(() -> {
+            if (!isCurrent(token)) return;
+
+            // Only process error if player was actually initialized (not in early loading phase)
+            if (player.getStatus() == MediaPlayer.Status.UNKNOWN) {
+                // Ignore early initialization errors
+                return;
+            }
+
+            MediaException error = player.getError();
+            String errorMessage = error != null ? error.getMessage() : "Unknown error";
+            if (error != null) {
+                Log.error("Media player error for " + videoFile.getName(), error);
+            }
+
+            boolean isCodecError = errorMessage.contains("ERROR_MEDIA_INVALID") ||
+                    errorMessage.contains("ERROR_MEDIA_UNSUPPORTED") ||
+                    errorMessage.contains("MEDIA_UNSUPPORTED");
+
+            String title = isCodecError ? "Unsupported Video Format" : "Cannot Play Video";
+            String detail = isCodecError
+                    ? "This video uses a codec JavaFX cannot decode (likely not H.264).\nTry converting to H.264 MP4."
+                    : "The video may be corrupt, locked, or in an unsupported container.\nError: " + errorMessage;
+            String filePath = videoFile.getAbsolutePath();
+
+            isLoading = false;
+            onError.accept(title, detail, filePath);
+        });
+    }
+
+    /**
+     * Record the time from loadVideo to the first presented frame, i.e. the first
+     * playback position update while PLAYING
+     */
+    private void trackFirstFrame(MediaPlayer player, long token, long loadStart, boolean standby, File videoFile) {
+        player.currentTimeProperty().addListener(new ChangeListener<Duration>() {
+            @Override
+            public void changed(ObservableValue<? extends Duration> observable, Duration oldTime, Duration newTime) {
+                if (player.getStatus() != MediaPlayer.Status.PLAYING) {
+                    return; // Seek before play
+                }
+                observable.removeListener(this);
+                if (!isCurrent(token)) return;
+
+                long millis = (System.nanoTime() - loadStart) / 1_000_000;
+                if (standby) {
+                    standbyLoads++;
+                    standbyTotalMillis += millis;
+                } else {
+                    coldLoads++;
+                    coldTotalMillis += millis;
+                }
+                Log.info("First video frame after " + millis + " ms (" + (standby ? "standby" : "cold")
+                        + "): " + videoFile.getName() + " [" + getStartupStats() + "]");
             }
         });
-        delay.play();
+    }
+
+    /**
+     * Average time-to-first-frame so far, for cold loads and promoted standby players
+     */
+    public String getStartupStats() {
+        return "cold " + coldLoads + " avg " + (coldLoads > 0 ? coldTotalMillis / coldLoads : 0) + " ms"
+                + ", standby " + standbyLoads + " avg " + (standbyLoads > 0 ? standbyTotalMillis / standbyLoads : 0) + " ms";
+    }
+
+    /**
+     * Start position for a resume position: from the beginning when there is none
+     * or it is within the last second of the video
+     */
+    private static Duration startPosition(MediaPlayer player, double startSeconds) {
+        Duration total = player.getTotalDuration();
+        if (startSeconds <= 0 || (total != null && !total.isUnknown() && startSeconds >= total.toSeconds() - 1)) {
+            return Duration.ZERO;
+        }
+        return Duration.seconds(startSeconds);
+    }
+
+    /**
+     * Prepare a paused standby player for the video likely to be opened next,
+     * replacing any standby for another file. A later loadVideo of that file
+     * promotes it instead of starting a cold pipeline.
+     */
+    public void prepareStandby(File videoFile, double startSeconds) {
+        if (videoFile.equals(standbyFile)) {
+            return;
+        }
+        disposeStandby();
+        standbyFile = videoFile;
+
+        // Same dispose-then-create race as loadVideo: wait out the settle time first
+        long settleMillis = settleMillis();
+        if (settleMillis <= 0) {
+            createStandby(videoFile, startSeconds);
+        } else {
+            PauseTransition settle = new PauseTransition(Duration.millis(settleMillis));
+            settle.setOnFinished(e -> {
+                if (videoFile.equals(standbyFile) && standbyPlayer == null) {
+                    createStandby(videoFile, startSeconds);
+                }
+            });
+            settle.play();
+        }
+    }
+
+    private void createStandby(File videoFile, double startSeconds) {
+        try {
+            MediaPlayer player = new MediaPlayer(new Media(videoFile.toURI().toString()));
+            standbyPlayer = player;
+            player.setOnReady(() -> {
+                if (standbyPlayer == player) {
+                    player.seek(startPosition(player, startSeconds));
+                }
+            });
+            player.setOnError(() -> {
+                if (standbyPlayer == player) {
+                    disposeStandby(); // loadVideo reports the error when the video is opened
+                }
+            });
+        } catch (Exception e) {
+            Log.debug("Cannot prepare standby player for " + videoFile.getName() + ": " + e.getMessage());
+            disposeStandby();
+        }
+    }
+
+    /**
+     * Dispose the standby player, if any (the user jumped elsewhere or the viewer closed);
+     * also cancels a standby still waiting for the settle time
+     */
+    public void disposeStandby() {
+        if (standbyPlayer != null) {
+            standbyPlayer.dispose();
+            lastDisposeNanos = System.nanoTime();
+        }
+        standbyPlayer = null;
+        standbyFile = null;
+    }
+
+    /**
+     * Hand over the standby player if it was prepared for videoFile and is usable
+     */
+    private MediaPlayer takeStandby(File videoFile) {
+        if (!videoFile.equals(standbyFile)) {
+            return null;
+        }
+        if (standbyPlayer == null) {
+            standbyFile = null; // Still settling: the cold load replaces it
+            return null;
+        }
+        MediaPlayer player = standbyPlayer;
+        standbyPlayer = null;
+        standbyFile = null;
+        player.setOnReady(null);
+        player.setOnError(null);
+        MediaPlayer.Status status = player.getStatus();
+        if (status == MediaPlayer.Status.HALTED || status == MediaPlayer.Status.DISPOSED) {
+            player.dispose();
+            return null;
+        }
+        return player;
     }
 
     /**
@@ -182,7 +375,7 @@ public class MediaController {
      * Runs continuously during playback, not just at start.
      * FIX #4: Run every 1 second instead of 2 for faster detection.
      */
-    private void startWatchdog() {
+    private void startWatchdog(long token) {
         if (watchdog != null) {
             watchdog.stop();
         }
@@ -190,7 +383,7 @@ public class MediaController {
 
         // FIX #4: Run every 1 second instead of 2
         watchdog = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            if (isDisposed) return; // Check if disposed
+            if (!isCurrent(token)) return; // Check if disposed
             if (currentPlayer == null) return;
             if (currentPlayer.getStatus() != MediaPlayer.Status.PLAYING) return;
 
@@ -201,10 +394,10 @@ public class MediaController {
                 // If time hasn't progressed in 1 second
                 if (delta < 0.05) {
                     // Time hasn't progressed — video is frozen
-                    MediaMetadataUtils.logDebug("Freeze detected (delta=" + delta + "s). Resetting MediaView visibility.");
+                    Log.debug("Freeze detected (delta=" + delta + "s). Resetting MediaView visibility.");
                     if (mediaView != null) {
                         Platform.runLater(() -> {
-                            if (isDisposed) return; // Double-check before UI update
+                            if (!isCurrent(token)) return; // Double-check before UI update
                             mediaView.setVisible(false);
                             mediaView.setVisible(true);
                         });
@@ -222,12 +415,17 @@ public class MediaController {
      * Also sets MediaView's player to null before disposal.
      * Also stops and nulls the watchdog Timeline.
      * Resets isLoading to false.
-     * Sets isDisposed flag to block pending callbacks.
+     * Bumps the session token FIRST to block pending callbacks.
      */
     public void disposeCurrentPlayer() {
-        isDisposed = true; // Set disposed flag FIRST
+        loadToken++;
         isLoading = false;
         lastWatchdogTime = 0.0;
+
+        if (loadTimeout != null) {
+            loadTimeout.stop();
+            loadTimeout = null;
+        }
         
         if (watchdog != null) {
             watchdog.stop();
@@ -238,6 +436,7 @@ public class MediaController {
             currentPlayer.stop();
             currentPlayer.dispose();
             currentPlayer = null;
+            lastDisposeNanos = System.nanoTime();
         }
         
         if (mediaView != null) {
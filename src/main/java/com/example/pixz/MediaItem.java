@@ -1,20 +1,27 @@
 package com.example.pixz;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import javafx.scene.image.Image;
 
 /**
  * Model class representing a media file (image or video)
- * Uses WeakReference for thumbnail to prevent memory leaks
+ * Uses WeakReference for thumbnail to prevent memory leaks; the strong
+ * copy lives in ThumbnailCache's byte-budgeted memory tier
+ *
+ * File attributes come from an immutable FileSnapshot captured by the scanner
+ * (or the media catalog), so rendering, sorting and cache lookups never stat the file
  */
 public class MediaItem {
     private final File file;
     private WeakReference<Image> thumbnailRef;
     private final MediaType type;
-    private int width;
-    private int height;
+    private volatile FileSnapshot snapshot; // Read lazily if the item was created without one
+    private volatile MediaMetadata metadata; // Null until extracted (see MediaMetadataUtils)
     private boolean isFavorite;
     private double lastPlaybackPositionSeconds = 0.0;
 
@@ -22,9 +29,97 @@ public class MediaItem {
         IMAGE, VIDEO
     }
 
+    /**
+     * File attributes as of one point in time (size and mtime are -1 until read)
+     * The thumbnail cache key is derived from path and mtime on first use
+     */
+    public static final class FileSnapshot {
+        private final String path;
+        private final String parentPath;
+        private final long size;
+        private final long lastModified;
+        private volatile String cacheKey;
+
+        public FileSnapshot(String path, String parentPath, long size, long lastModified, String cacheKey) {
+            this.path = path;
+            this.parentPath = parentPath;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.cacheKey = cacheKey;
+        }
+
+        /**
+         * Snapshot with the given attributes; paths are taken from file (no file system access)
+         */
+        public static FileSnapshot of(File file, long size, long lastModified) {
+            // Absolute and normalized by File; symbolic links are not resolved
+            File absolute = file.isAbsolute() ? file : file.getAbsoluteFile();
+            String parentPath = absolute.getParent();
+            return new FileSnapshot(absolute.getPath(), parentPath != null ? parentPath : "", size,
+                    lastModified, null);
+        }
+
+        /**
+         * Read attributes with a single stat (size and mtime are 0 if the file is gone,
+         * like File.length() and File.lastModified())
+         */
+        public static FileSnapshot read(File file) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                return of(file, attrs.size(), attrs.lastModifiedTime().toMillis());
+            } catch (IOException | SecurityException e) {
+                return of(file, 0, 0);
+            }
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getParentPath() {
+            return parentPath;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public boolean isRead() {
+            return lastModified >= 0;
+        }
+
+        /**
+         * Thumbnail cache key for this version of the file (null until attributes are read)
+         */
+        public String getCacheKey() {
+            String key = cacheKey;
+            if (key == null && isRead()) {
+                key = ThumbnailCache.getCacheKey(path, lastModified);
+                cacheKey = key;
+            }
+            return key;
+        }
+
+        /**
+         * Whether other describes the same file version (same size and mtime)
+         */
+        public boolean sameVersion(FileSnapshot other) {
+            return size == other.size && lastModified == other.lastModified;
+        }
+    }
+
     public MediaItem(File file, MediaType type) {
+        this(file, type, FileSnapshot.of(file, -1, -1));
+    }
+
+    public MediaItem(File file, MediaType type, FileSnapshot snapshot) {
         this.file = file;
         this.type = type;
+        this.snapshot = snapshot;
         this.isFavorite = false;
     }
 
@@ -34,39 +129,75 @@ public class MediaItem {
 
     /**
      * Get thumbnail image
-     * Returns null if image was reclaimed by GC
-     * Caller should reload from cache if needed
+     * If the weak reference was cleared, consults the thumbnail memory tier
+     * Returns null if the thumbnail is not resident in memory
+     * Caller should reload from disk cache if needed
      */
     public Image getThumbnail() {
-        return thumbnailRef != null ? thumbnailRef.get() : null;
+        Image thumbnail = thumbnailRef != null ? thumbnailRef.get() : null;
+        if (thumbnail == null && thumbnailRef != null) {
+            thumbnail = ThumbnailCache.getMemoryCachedThumbnail(this);
+            if (thumbnail != null) {
+                thumbnailRef = new WeakReference<>(thumbnail);
+            }
+        }
+        return thumbnail;
     }
 
     /**
      * Set thumbnail image using WeakReference
-     * Allows GC to reclaim memory when needed
+     * The memory tier keeps a strong copy within its byte budget
      */
     public void setThumbnail(Image thumbnail) {
         this.thumbnailRef = thumbnail != null ? new WeakReference<>(thumbnail) : null;
+        if (thumbnail != null) {
+            ThumbnailCache.putMemoryCachedThumbnail(this, thumbnail);
+        }
     }
 
     public MediaType getType() {
         return type;
     }
 
-    public int getWidth() {
-        return width;
+    /**
+     * Current attribute snapshot; an item created without one reads it once here
+     * Snapshots are never updated in place: a rescan that finds a different size or
+     * mtime replaces the whole item (see MediaCatalog.diff)
+     */
+    public FileSnapshot getSnapshot() {
+        FileSnapshot current = snapshot;
+        if (!current.isRead()) {
+            current = FileSnapshot.read(file);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    public long getFileSize() {
+        return getSnapshot().getSize();
     }
 
-    public void setWidth(int width) {
-        this.width = width;
+    public long getLastModified() {
+        return getSnapshot().getLastModified();
     }
 
-    public int getHeight() {
-        return height;
+    /**
+     * Metadata of the current file version, or null if it has not been extracted yet
+     * Use MediaMetadataUtils.getMetadata to extract it on demand
+     */
+    public MediaMetadata getMetadata() {
+        return metadata;
     }
 
-    public void setHeight(int height) {
-        this.height = height;
+    public void setMetadata(MediaMetadata metadata) {
+        this.metadata = metadata;
+    }
+
+    /**
+     * Thumbnail cache key of the current file version
+     */
+    public String getThumbnailKey() {
+        return getSnapshot().getCacheKey();
     }
 
     public String getName() {
@@ -74,7 +205,14 @@ public class MediaItem {
     }
 
     public String getPath() {
-        return file.getAbsolutePath();
+        return snapshot.getPath();
+    }
+
+    /**
+     * Absolute path of the containing folder ("" for a root)
+     */
+    public String getParentPath() {
+        return snapshot.getParentPath();
     }
 
     public boolean isFavorite() {
@@ -0,0 +1,55 @@
+package com.example.pixz;
+
+/**
+ * Metadata of one version of a media file, extracted in a single pass
+ * (see MediaMetadataUtils.getMetadata) and persisted with the media catalog
+ * Immutable; unknown values are 0 (orientation defaults to 1, upright)
+ */
+public final class MediaMetadata {
+    private final int rotation;
+    private final int orientation;
+    private final int width;
+    private final int height;
+    private final long captureTime;
+    private final long durationMillis;
+
+    public MediaMetadata(int rotation, int orientation, int width, int height, long captureTime,
+            long durationMillis) {
+        this.rotation = rotation;
+        this.orientation = orientation;
+        this.width = width;
+        this.height = height;
+        this.captureTime = captureTime;
+        this.durationMillis = durationMillis;
+    }
+
+    /** Clockwise rotation in degrees to display the media upright */
+    public int getRotation() {
+        return rotation;
+    }
+
+    /** EXIF orientation (1-8, including mirrored variants); 1 for videos */
+    public int getOrientation() {
+        return orientation;
+    }
+
+    /** Stored width in pixels, before rotation */
+    public int getWidth() {
+        return width;
+    }
+
+    /** Stored height in pixels, before rotation */
+    public int getHeight() {
+        return height;
+    }
+
+    /** Capture date in epoch milliseconds (EXIF original date or container creation time) */
+    public long getCaptureTime() {
+        return captureTime;
+    }
+
+    /** Video duration in milliseconds (0 for images) */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
@@ -1,190 +1,301 @@
 package com.example.pixz;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentData;
+import com.drew.imaging.jpeg.JpegSegmentReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataException;
+import com.drew.metadata.avi.AviDirectory;
+import com.drew.metadata.bmp.BmpHeaderDirectory;
 import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.gif.GifHeaderDirectory;
+import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.mov.QuickTimeDirectory;
+import com.drew.metadata.mov.media.QuickTimeVideoDirectory;
+import com.drew.metadata.mp4.Mp4Directory;
+import com.drew.metadata.mp4.media.Mp4VideoDirectory;
+import com.drew.metadata.png.PngDirectory;
 
 /**
- * Utility class for reading media metadata, specifically orientation/rotation
+ * Utility class for reading media metadata (orientation, dimensions, dates, duration)
+ * Each file version is parsed once; results are kept on the item, in a memory cache
+ * keyed by path and validated by size and mtime, and in the media catalog
  */
 public class MediaMetadataUtils {
+    // Where to find stored pixel dimensions, in order of preference
+    private static final DimensionTags[] IMAGE_DIMENSIONS = {
+            new DimensionTags(JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH, JpegDirectory.TAG_IMAGE_HEIGHT),
+            new DimensionTags(PngDirectory.class, PngDirectory.TAG_IMAGE_WIDTH, PngDirectory.TAG_IMAGE_HEIGHT),
+            new DimensionTags(GifHeaderDirectory.class, GifHeaderDirectory.TAG_IMAGE_WIDTH,
+                    GifHeaderDirectory.TAG_IMAGE_HEIGHT),
+            new DimensionTags(BmpHeaderDirectory.class, BmpHeaderDirectory.TAG_IMAGE_WIDTH,
+                    BmpHeaderDirectory.TAG_IMAGE_HEIGHT),
+    };
+    private static final DimensionTags[] VIDEO_DIMENSIONS = {
+            new DimensionTags(Mp4VideoDirectory.class, Mp4VideoDirectory.TAG_WIDTH, Mp4VideoDirectory.TAG_HEIGHT),
+            new DimensionTags(QuickTimeVideoDirectory.class, QuickTimeVideoDirectory.TAG_WIDTH,
+                    QuickTimeVideoDirectory.TAG_HEIGHT),
+            new DimensionTags(AviDirectory.class, AviDirectory.TAG_WIDTH, AviDirectory.TAG_HEIGHT),
+    };
+
+    private static final Map<String, CachedMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    /**
+     * Directory type and tags holding a format's pixel dimensions
+     */
+    private static final class DimensionTags {
+        final Class<? extends Directory> type;
+        final int widthTag;
+        final int heightTag;
+
+        DimensionTags(Class<? extends Directory> type, int widthTag, int heightTag) {
+            this.type = type;
+            this.widthTag = widthTag;
+            this.heightTag = heightTag;
+        }
+    }
+
+    /**
+     * Memory cache entry: metadata and the file version it was read from
+     */
+    private static final class CachedMetadata {
+        final MediaItem.FileSnapshot snapshot;
+        final MediaMetadata metadata;
+
+        CachedMetadata(MediaItem.FileSnapshot snapshot, MediaMetadata metadata) {
+            this.snapshot = snapshot;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * Thumbnail embedded in a JPEG's EXIF block, with the orientation of the main image
+     */
+    public static final class EmbeddedThumbnail {
+        private final byte[] data;
+        private final int orientation;
+
+        EmbeddedThumbnail(byte[] data, int orientation) {
+            this.data = data;
+            this.orientation = orientation;
+        }
+
+        /** Encoded JPEG bytes (typically 160x120) */
+        public byte[] getData() {
+            return data;
+        }
+
+        /** EXIF orientation (1-8) to apply to display the image upright */
+        public int getOrientation() {
+            return orientation;
+        }
+    }
 
     /**
      * Get the rotation in degrees for a media file (Image or Video)
      * Returns 0 if no rotation metadata is found
      */
     public static int getRotation(File file) {
-        if (ThumbnailGenerator.isImageFile(file)) {
-            return getImageOrientation(file);
-        } else if (ThumbnailGenerator.isVideoFile(file)) {
-            return getVideoRotation(file);
+        MediaItem.MediaType type = ThumbnailGenerator.isVideoFile(file) ? MediaItem.MediaType.VIDEO
+                : MediaItem.MediaType.IMAGE;
+        return getMetadata(new MediaItem(file, type)).getRotation();
+    }
+
+    /**
+     * Metadata of an item's current file version
+     * Served from the item (restored from the media catalog) or the memory cache;
+     * the file is only parsed the first time a version is seen
+     */
+    public static MediaMetadata getMetadata(MediaItem item) {
+        MediaMetadata metadata = item.getMetadata();
+        if (metadata != null) {
+            return metadata;
         }
-        return 0;
+
+        MediaItem.FileSnapshot snapshot = item.getSnapshot();
+        CachedMetadata cached = metadataCache.get(snapshot.getPath());
+        if (cached != null && cached.snapshot.sameVersion(snapshot)) {
+            metadata = cached.metadata;
+        } else {
+            metadata = extractMetadata(item.getFile(), item.getType());
+            metadataCache.put(snapshot.getPath(), new CachedMetadata(snapshot, metadata));
+        }
+        item.setMetadata(metadata);
+        return metadata;
     }
 
-    private static int getImageOrientation(File file) {
+    /**
+     * Parse a file once and collect everything the viewer and gallery need
+     */
+    private static MediaMetadata extractMetadata(File file, MediaItem.MediaType type) {
         try {
             Metadata metadata = ImageMetadataReader.readMetadata(file);
-            ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
-
-            if (directory != null && directory.containsTag(ExifIFD0Directory.TAG_ORIENTATION)) {
-                int orientation = directory.getInt(ExifIFD0Directory.TAG_ORIENTATION);
-
-                // Convert EXIF orientation to degrees
-                switch (orientation) {
-                    case 6:
-                        return 90; // Rotate 90 CW (Right)
-                    case 3:
-                        return 180; // Rotate 180
-                    case 8:
-                        return 270; // Rotate 270 CW (Left)
-                    default:
-                        return 0; // Normal or unknown
-                }
+            int[] size = readDimensions(metadata,
+                    type == MediaItem.MediaType.VIDEO ? VIDEO_DIMENSIONS : IMAGE_DIMENSIONS);
+            if (type == MediaItem.MediaType.VIDEO) {
+                return new MediaMetadata(readVideoRotation(metadata), 1, size[0], size[1],
+                        readContainerDate(metadata), readDuration(metadata));
             }
+            int orientation = readOrientation(metadata);
+            return new MediaMetadata(orientationToDegrees(orientation), orientation, size[0], size[1],
+                    readCaptureDate(metadata), 0);
         } catch (Throwable t) {
-            System.err.println("Error reading image orientation for " + file.getName() + ": " + t.getMessage());
-            // t.printStackTrace(); // Optional: enable for deep debugging
+            Log.warn("Error reading metadata for " + file.getName() + ": " + t.getMessage());
+            return new MediaMetadata(0, 1, 0, 0, 0, 0);
         }
-        return 0;
     }
 
-    private static int getVideoRotation(File file) {
-        try {
-            Metadata metadata = ImageMetadataReader.readMetadata(file);
-
-            Integer priorityRotation = null;
-            Integer fallbackRotation = null;
+    /**
+     * EXIF orientation value (1-8), 1 if absent or invalid
+     */
+    private static int readOrientation(Metadata metadata) throws MetadataException {
+        ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        if (directory != null && directory.containsTag(ExifIFD0Directory.TAG_ORIENTATION)) {
+            int orientation = directory.getInt(ExifIFD0Directory.TAG_ORIENTATION);
+            return orientation >= 1 && orientation <= 8 ? orientation : 1;
+        }
+        return 1;
+    }
 
-            // Search for Rotation tag in all directories
-            for (com.drew.metadata.Directory dir : metadata.getDirectories()) {
-                String dirName = dir.getName();
+    private static int readVideoRotation(Metadata metadata) throws MetadataException {
+        // Container rotation (track matrix) first, EXIF-style orientation as a fallback
+        int rotation = readTag(metadata, Mp4Directory.class, Mp4Directory.TAG_ROTATION);
+        if (rotation == 0) {
+            rotation = readTag(metadata, QuickTimeDirectory.class, QuickTimeDirectory.TAG_ROTATION);
+        }
+        if (rotation == 0) {
+            rotation = orientationToDegrees(readOrientation(metadata));
+        }
+        rotation = ((rotation % 360) + 360) % 360;
 
-                // Ignore thumbnail directories for rotation
-                if (dirName.contains("Thumbnail"))
-                    continue;
+        // Metadata says "the video was recorded rotated X degrees",
+        // so rotate it back by 360-X degrees to display it upright
+        return (360 - rotation) % 360;
+    }
 
-                for (com.drew.metadata.Tag tag : dir.getTags()) {
-                    String tagName = tag.getTagName().toLowerCase();
-
-                    if (tagName.contains("rotation")) {
-                        int rotation = 0;
-                        boolean parsed = false;
-
-                        try {
-                            rotation = dir.getInt(tag.getTagType());
-                            parsed = true;
-                        } catch (Exception e) {
-                            String desc = tag.getDescription().replaceAll("[^0-9-]", "");
-                            try {
-                                if (!desc.isEmpty()) {
-                                    rotation = Integer.parseInt(desc);
-                                    parsed = true;
-                                }
-                            } catch (NumberFormatException nfe) {
-                            }
-                        }
-
-                        if (parsed) {
-                            logDebug("DEBUG: Found rotation " + rotation + " in " + dirName + " (" + tagName + ")");
-
-                            // Normalize rotation to 0-359 range first
-                            rotation = ((rotation % 360) + 360) % 360;
-
-                            if (dirName.contains("MP4") || dirName.contains("QuickTime")
-                                    || dirName.contains("Header")) {
-                                // Prefer non-zero rotation if we find conflicts within priority directories
-                                if (priorityRotation == null || (priorityRotation == 0 && rotation != 0)) {
-                                    priorityRotation = rotation;
-                                }
-                            } else {
-                                if (fallbackRotation == null || (fallbackRotation == 0 && rotation != 0)) {
-                                    fallbackRotation = rotation;
-                                }
-                            }
-                        }
-                    } else if (tagName.contains("orientation")) {
-                        // Handle orientation logic...
-                        try {
-                            int val = dir.getInt(tag.getTagType());
-                            int degrees = 0;
-                            switch (val) {
-                                case 6:
-                                    degrees = 90;
-                                    break;
-                                case 3:
-                                    degrees = 180;
-                                    break;
-                                case 8:
-                                    degrees = 270;
-                                    break;
-                            }
-                            if (degrees != 0) {
-                                logDebug("DEBUG: Found orientation " + val + " (" + degrees + "deg) in " + dirName);
-                                if (fallbackRotation == null || (fallbackRotation == 0 && degrees != 0)) {
-                                    fallbackRotation = degrees;
-                                }
-                            }
-                        } catch (Exception e) {
-                        }
-                    }
+    private static int readTag(Metadata metadata, Class<? extends Directory> type, int tag)
+            throws MetadataException {
+        for (Directory directory : metadata.getDirectoriesOfType(type)) {
+            if (directory.containsTag(tag)) {
+                int value = directory.getInt(tag);
+                if (value != 0) {
+                    return value;
                 }
             }
+        }
+        return 0;
+    }
 
-            // Normalize rotation values
-            // Video rotation metadata typically indicates how much to rotate clockwise to display correctly
-            Integer finalRotation = null;
-            
-            if (priorityRotation != null && priorityRotation != 0) {
-                finalRotation = priorityRotation;
-                logDebug(file.getName() + " -> Selected Priority Rotation: " + priorityRotation);
-            } else if (fallbackRotation != null && fallbackRotation != 0) {
-                finalRotation = fallbackRotation;
-                logDebug(file.getName() + " -> Selected Fallback Rotation: " + fallbackRotation
-                        + " (Overrides 0 Priority)");
-            } else if (priorityRotation != null) {
-                finalRotation = priorityRotation;
-                logDebug(file.getName() + " -> Selected Priority Rotation: " + priorityRotation);
-            }
-            
-            if (finalRotation != null) {
-                // Normalize to 0-359 range
-                finalRotation = ((finalRotation % 360) + 360) % 360;
-                
-                // CRITICAL FIX: Video metadata rotation needs to be INVERTED
-                // Metadata says "the video was recorded rotated X degrees" 
-                // So we need to rotate it BACK by -X degrees (or 360-X) to display correctly
-                // Example: Video recorded at 180° (upside down) -> rotate by -180° (or 180°) to fix
-                // Example: Video recorded at 90° CW -> rotate by 270° CW (or -90°) to fix
-                
-                if (finalRotation != 0) {
-                    int correctedRotation = (360 - finalRotation) % 360;
-                    logDebug(file.getName() + " -> Original rotation: " + finalRotation + 
-                            ", Corrected (inverted): " + correctedRotation);
-                    return correctedRotation;
+    private static int[] readDimensions(Metadata metadata, DimensionTags[] candidates) throws MetadataException {
+        for (DimensionTags tags : candidates) {
+            for (Directory directory : metadata.getDirectoriesOfType(tags.type)) {
+                if (directory.containsTag(tags.widthTag) && directory.containsTag(tags.heightTag)) {
+                    return new int[] { directory.getInt(tags.widthTag), directory.getInt(tags.heightTag) };
                 }
-                
-                logDebug(file.getName() + " -> Final rotation: " + finalRotation);
-                return finalRotation;
             }
+        }
+        return new int[] { 0, 0 };
+    }
+
+    private static long readCaptureDate(Metadata metadata) {
+        ExifSubIFDDirectory directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        Date date = directory != null ? directory.getDateOriginal(TimeZone.getDefault()) : null;
+        return date != null ? date.getTime() : readContainerDate(metadata);
+    }
 
-            logDebug(file.getName() + " -> No 'Rotation' tag found.");
-            return 0;
+    private static long readContainerDate(Metadata metadata) {
+        Date date = readDate(metadata, Mp4Directory.class, Mp4Directory.TAG_CREATION_TIME);
+        if (date == null) {
+            date = readDate(metadata, QuickTimeDirectory.class, QuickTimeDirectory.TAG_CREATION_TIME);
+        }
+        return date != null ? date.getTime() : 0;
+    }
+
+    private static Date readDate(Metadata metadata, Class<? extends Directory> type, int tag) {
+        Directory directory = metadata.getFirstDirectoryOfType(type);
+        return directory != null ? directory.getDate(tag) : null;
+    }
 
+    private static long readDuration(Metadata metadata) {
+        Directory directory = metadata.getFirstDirectoryOfType(Mp4Directory.class);
+        if (directory == null) {
+            directory = metadata.getFirstDirectoryOfType(QuickTimeDirectory.class);
+        }
+        // Same tag number in both directories
+        Double seconds = directory != null ? directory.getDoubleObject(Mp4Directory.TAG_DURATION_SECONDS) : null;
+        return seconds != null ? Math.round(seconds * 1000) : 0;
+    }
+
+    /**
+     * Read the embedded EXIF thumbnail of a JPEG
+     * Only the segments before the image data are read, and only APP1 is kept;
+     * returns null if there is no usable thumbnail
+     */
+    public static EmbeddedThumbnail readEmbeddedThumbnail(File file) {
+        try {
+            JpegSegmentData segments = JpegSegmentReader.readSegments(file,
+                    Collections.singletonList(JpegSegmentType.APP1));
+            for (byte[] segment : segments.getSegments(JpegSegmentType.APP1)) {
+                if (!ExifReader.startsWithJpegExifPreamble(segment)) {
+                    continue; // XMP or other APP1 payload
+                }
+
+                Metadata metadata = new Metadata();
+                new ExifReader().readJpegSegments(Collections.singletonList(segment), metadata,
+                        JpegSegmentType.APP1);
+                ExifThumbnailDirectory thumbnailDirectory = metadata
+                        .getFirstDirectoryOfType(ExifThumbnailDirectory.class);
+                if (thumbnailDirectory == null
+                        || !thumbnailDirectory.containsTag(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH)) {
+                    continue;
+                }
+
+                // Offset is relative to the segment (the TIFF header follows the preamble)
+                Integer offset = thumbnailDirectory.getAdjustedThumbnailOffset();
+                int length = thumbnailDirectory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH);
+                if (offset == null || offset < 0 || length <= 0 || offset + length > segment.length) {
+                    continue;
+                }
+
+                return new EmbeddedThumbnail(Arrays.copyOfRange(segment, offset, offset + length),
+                        readOrientation(metadata));
+            }
         } catch (Throwable t) {
-            logDebug(file.getName() + " -> Error reading rotation: " + t.getMessage());
+            // No EXIF block or unreadable header: no preview
         }
-        return 0;
+        return null;
     }
 
-    public static void logDebug(String message) {
-        try (java.io.PrintWriter out = new java.io.PrintWriter(
-                new java.io.FileWriter("s:\\Programming\\Pixz\\debug.log", true))) {
-            out.println(new java.util.Date() + ": " + message);
-        } catch (Exception e) {
-            // Ignore logging errors
+    /**
+     * Rotation part of an EXIF orientation value in clockwise degrees
+     * (for views that can only rotate; mirroring is dropped)
+     */
+    private static int orientationToDegrees(int orientation) {
+        switch (orientation) {
+            case 6:
+            case 5: // Transposed
+                return 90; // Rotate 90 CW (Right)
+            case 3:
+            case 4: // Flipped vertically
+                return 180; // Rotate 180
+            case 8:
+            case 7: // Transversed
+                return 270; // Rotate 270 CW (Left)
+            default:
+                return 0; // Normal, mirrored horizontally or unknown
         }
     }
 }
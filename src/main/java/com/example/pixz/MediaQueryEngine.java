@@ -0,0 +1,355 @@
+package com.example.pixz;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filters and sorts the media library for the gallery grid
+ * Keeps a snapshot of the library with cached names, dates and folders, an index
+ * array sorted once per sort key and one bit set per predicate, so a query is a
+ * few bit set intersections plus one pass over a sorted index array
+ *
+ * Call invalidate() whenever the library list changes and favoritesChanged()
+ * when favorite flags change; everything else is picked up by the next query
+ * Not thread safe (FX thread only)
+ */
+public class MediaQueryEngine {
+
+    public enum SortKey {
+        NAME, DATE_MODIFIED,
+        /** Library order */
+        NONE
+    }
+
+    /**
+     * Displayed list produced by a query, with the difference to the previous one
+     */
+    public final class Result {
+        private final List<MediaItem> items;
+        private final boolean changed;
+        private final List<MediaItem> previousItems;
+        private final BitSet previousMatches;
+        private final BitSet matches;
+        private final MediaItem[] snapshot = MediaQueryEngine.this.items;
+        private List<MediaItem> added;
+        private List<MediaItem> removed;
+
+        private Result(List<MediaItem> items, boolean changed, List<MediaItem> previousItems,
+                BitSet previousMatches, BitSet matches) {
+            this.items = items;
+            this.changed = changed;
+            this.previousItems = previousItems;
+            this.previousMatches = previousMatches;
+            this.matches = matches;
+        }
+
+        /** Items to display, in display order (read-only) */
+        public List<MediaItem> getItems() {
+            return items;
+        }
+
+        /** False if the list is identical to the previous result (same items, same order) */
+        public boolean isChanged() {
+            return changed;
+        }
+
+        /** Items that were not displayed before */
+        public List<MediaItem> getAdded() {
+            if (added == null) {
+                computeDiff();
+            }
+            return added;
+        }
+
+        /** Items that are no longer displayed */
+        public List<MediaItem> getRemoved() {
+            if (removed == null) {
+                computeDiff();
+            }
+            return removed;
+        }
+
+        private void computeDiff() {
+            if (previousMatches != null) {
+                // Same snapshot: compare bit sets
+                added = itemsOf(snapshot, andNot(matches, previousMatches));
+                removed = itemsOf(snapshot, andNot(previousMatches, matches));
+                return;
+            }
+
+            // Library was rebuilt since the previous query: compare by identity
+            Set<MediaItem> before = Collections.newSetFromMap(new IdentityHashMap<>());
+            before.addAll(previousItems);
+            Set<MediaItem> after = Collections.newSetFromMap(new IdentityHashMap<>());
+            after.addAll(items);
+            added = new ArrayList<>();
+            for (MediaItem item : items) {
+                if (!before.contains(item)) {
+                    added.add(item);
+                }
+            }
+            removed = new ArrayList<>();
+            for (MediaItem item : previousItems) {
+                if (!after.contains(item)) {
+                    removed.add(item);
+                }
+            }
+        }
+    }
+
+    private final List<MediaItem> library;
+    private boolean stale = true;
+    private boolean favoritesStale = true;
+
+    // Snapshot of the library (index = position in the library list)
+    private MediaItem[] items = new MediaItem[0];
+    private String[] names = new String[0];
+    private String[] lowerNames = new String[0];
+    private int[] folderIds = new int[0];
+    private final Map<String, Integer> folderIdsByPath = new HashMap<>();
+    private final Map<Integer, BitSet> folderSets = new HashMap<>(); // Built on first use
+    private final Map<MediaItem, Integer> snapshotIndex = new IdentityHashMap<>();
+    private long[] dates = new long[0];
+    private int[] byName = null; // Sorted on first use
+    private int[] byDateDesc = null;
+    private final BitSet images = new BitSet();
+    private final BitSet videos = new BitSet();
+    private final BitSet favorites = new BitSet();
+    private final BitSet all = new BitSet();
+
+    // Previous query
+    private boolean rebuiltSinceQuery = true;
+    private String lastSearch = "";
+    private BitSet lastSearchMatches = null;
+    private BitSet lastMatches = null;
+    private SortKey lastSortKey = null;
+    private List<MediaItem> lastItems = Collections.emptyList();
+    private int[] positions = new int[0]; // Snapshot index -> display position, -1 if hidden
+
+    public MediaQueryEngine(List<MediaItem> library) {
+        this.library = library;
+    }
+
+    /**
+     * The library list was modified (items added, removed or replaced)
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Favorite flags of some items were changed
+     */
+    public void favoritesChanged() {
+        favoritesStale = true;
+    }
+
+    /**
+     * Filter and sort the library
+     *
+     * @param type    media type to show, or null for all
+     * @param folder  only show direct children of this folder, or null for all
+     * @param search  case-insensitive name substring, or null/blank for all
+     */
+    public Result query(MediaItem.MediaType type, boolean favoritesOnly, String folder, String search,
+            SortKey sortKey) {
+        if (stale) {
+            rebuild();
+        }
+        if (favoritesStale) {
+            rebuildFavorites();
+        }
+
+        BitSet matches = (BitSet) (type == MediaItem.MediaType.IMAGE ? images
+                : type == MediaItem.MediaType.VIDEO ? videos : all).clone();
+        if (favoritesOnly) {
+            matches.and(favorites);
+        }
+        if (folder != null) {
+            matches.and(folderSet(new File(folder).getAbsolutePath()));
+        }
+        if (search != null && !search.trim().isEmpty()) {
+            matches.and(searchMatches(search.toLowerCase()));
+        } else {
+            lastSearch = "";
+            lastSearchMatches = null;
+        }
+
+        // Nothing to redo if the same items would be shown in the same order
+        boolean sameSnapshot = !rebuiltSinceQuery;
+        if (sameSnapshot && matches.equals(lastMatches) && sortKey == lastSortKey) {
+            return new Result(lastItems, false, lastItems, lastMatches, lastMatches);
+        }
+
+        // Walk the pre-sorted index and keep the matching entries
+        int[] order = sortOrder(sortKey);
+        MediaItem[] selected = new MediaItem[matches.cardinality()];
+        Arrays.fill(positions, -1);
+        int count = 0;
+        if (order != null) {
+            for (int index : order) {
+                if (matches.get(index)) {
+                    positions[index] = count;
+                    selected[count++] = items[index];
+                }
+            }
+        } else {
+            for (int index = matches.nextSetBit(0); index >= 0; index = matches.nextSetBit(index + 1)) {
+                positions[index] = count;
+                selected[count++] = items[index];
+            }
+        }
+
+        List<MediaItem> result = Collections.unmodifiableList(Arrays.asList(selected));
+        Result outcome = new Result(result, true, lastItems, sameSnapshot ? lastMatches : null, matches);
+        lastItems = result;
+        lastMatches = matches;
+        lastSortKey = sortKey;
+        rebuiltSinceQuery = false;
+        return outcome;
+    }
+
+    /**
+     * Position of an item in the last query result, or -1 if it is not displayed
+     */
+    public int positionOf(MediaItem item) {
+        Integer index = snapshotIndex.get(item);
+        return index != null && index < positions.length ? positions[index] : -1;
+    }
+
+    private BitSet searchMatches(String lowerSearch) {
+        // A longer query can only match a subset of what the shorter one matched,
+        // so refine the previous matches while the user keeps typing
+        BitSet candidates = lastSearchMatches != null && lowerSearch.contains(lastSearch) ? lastSearchMatches : all;
+        BitSet found = new BitSet(items.length);
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            if (lowerNames[index].contains(lowerSearch)) {
+                found.set(index);
+            }
+        }
+        lastSearch = lowerSearch;
+        lastSearchMatches = found;
+        return found;
+    }
+
+    private BitSet folderSet(String folderPath) {
+        Integer folderId = folderIdsByPath.get(folderPath);
+        if (folderId == null) {
+            return new BitSet();
+        }
+        return folderSets.computeIfAbsent(folderId, id -> {
+            BitSet set = new BitSet(items.length);
+            for (int index = 0; index < folderIds.length; index++) {
+                if (folderIds[index] == id) {
+                    set.set(index);
+                }
+            }
+            return set;
+        });
+    }
+
+    private void rebuild() {
+        int count = library.size();
+        items = library.toArray(new MediaItem[0]);
+        lowerNames = new String[count];
+        folderIds = new int[count];
+        names = new String[count];
+        dates = new long[count];
+        folderIdsByPath.clear();
+        folderSets.clear();
+        snapshotIndex.clear();
+        images.clear();
+        videos.clear();
+        all.clear();
+        all.set(0, count);
+
+        for (int index = 0; index < count; index++) {
+            MediaItem item = items[index];
+            snapshotIndex.put(item, index);
+            names[index] = item.getName();
+            lowerNames[index] = names[index].toLowerCase();
+            String parentPath = item.getParentPath();
+            Integer folderId = folderIdsByPath.get(parentPath);
+            if (folderId == null) {
+                folderId = folderIdsByPath.size();
+                folderIdsByPath.put(parentPath, folderId);
+            }
+            folderIds[index] = folderId;
+            dates[index] = item.getLastModified(); // From the item's snapshot, no stat
+            if (item.getType() == MediaItem.MediaType.VIDEO) {
+                videos.set(index);
+            } else {
+                images.set(index);
+            }
+        }
+
+        byName = null;
+        byDateDesc = null;
+        positions = new int[count];
+        Arrays.fill(positions, -1);
+        lastSearch = "";
+        lastSearchMatches = null;
+        stale = false;
+        favoritesStale = true;
+        rebuiltSinceQuery = true;
+    }
+
+    /**
+     * Snapshot indices in display order for a sort key (null for library order)
+     * Stable (merge) sorts, so ties keep library order like a List.sort would
+     */
+    private int[] sortOrder(SortKey sortKey) {
+        if (sortKey == SortKey.NAME && byName == null) {
+            byName = sortedIndices((a, b) -> String.CASE_INSENSITIVE_ORDER.compare(names[a], names[b]));
+        } else if (sortKey == SortKey.DATE_MODIFIED && byDateDesc == null) {
+            byDateDesc = sortedIndices((a, b) -> Long.compare(dates[b], dates[a]));
+        }
+        return sortKey == SortKey.NAME ? byName : sortKey == SortKey.DATE_MODIFIED ? byDateDesc : null;
+    }
+
+    private int[] sortedIndices(Comparator<Integer> comparator) {
+        Integer[] order = new Integer[items.length];
+        for (int index = 0; index < order.length; index++) {
+            order[index] = index;
+        }
+        Arrays.parallelSort(order, comparator);
+        int[] result = new int[order.length];
+        for (int index = 0; index < order.length; index++) {
+            result[index] = order[index];
+        }
+        return result;
+    }
+
+    private void rebuildFavorites() {
+        favorites.clear();
+        for (int index = 0; index < items.length; index++) {
+            if (items[index].isFavorite()) {
+                favorites.set(index);
+            }
+        }
+        favoritesStale = false;
+    }
+
+    private static List<MediaItem> itemsOf(MediaItem[] snapshot, BitSet indices) {
+        List<MediaItem> result = new ArrayList<>(indices.cardinality());
+        for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+            result.add(snapshot[index]);
+        }
+        return result;
+    }
+
+    private static BitSet andNot(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.andNot(b);
+        return result;
+    }
+}
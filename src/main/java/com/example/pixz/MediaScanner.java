@@ -0,0 +1,227 @@
+package com.example.pixz;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Parallel media scanner built on NIO directory streams
+ * Every directory is listed by its own fork/join task; file type, size and mtime
+ * come from one attribute read per entry (served from the directory listing where
+ * the platform caches it) instead of separate isDirectory/isFile/length calls
+ *
+ * Results are delivered in batches while the scan is still running
+ * Symbolic links to directories are not followed (avoids cycles)
+ */
+public class MediaScanner {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Directory listing is I/O bound, so use at least 4 workers even on small machines
+    private static final ForkJoinPool scanPool = new ForkJoinPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Media found since the previous batch, with media counts for directories
+     * whose listing completed in the meantime
+     */
+    public static final class Batch {
+        private final List<MediaItem> items;
+        private final Map<String, Integer> folderMediaCount;
+
+        Batch(List<MediaItem> items, Map<String, Integer> folderMediaCount) {
+            this.items = items;
+            this.folderMediaCount = folderMediaCount;
+        }
+
+        public List<MediaItem> getItems() {
+            return items;
+        }
+
+        public Map<String, Integer> getFolderMediaCount() {
+            return folderMediaCount;
+        }
+    }
+
+    /**
+     * Collects results from all directory tasks and hands them out in batches
+     */
+    private static final class BatchSink {
+        private final Consumer<Batch> consumer;
+        private final int batchSize;
+        private List<MediaItem> items = new ArrayList<>();
+        private Map<String, Integer> folderMediaCount = new HashMap<>();
+        private final AtomicInteger total = new AtomicInteger();
+
+        BatchSink(Consumer<Batch> consumer, int batchSize) {
+            this.consumer = consumer;
+            this.batchSize = Math.max(1, batchSize);
+        }
+
+        void accept(String folderPath, List<MediaItem> found) {
+            total.addAndGet(found.size());
+            Batch ready = null;
+            synchronized (this) {
+                items.addAll(found);
+                folderMediaCount.put(folderPath, found.size());
+                if (items.size() >= batchSize) {
+                    ready = takeBatch();
+                }
+            }
+            if (ready != null) {
+                consumer.accept(ready); // Outside the lock
+            }
+        }
+
+        void finish() {
+            Batch ready;
+            synchronized (this) {
+                if (items.isEmpty() && folderMediaCount.isEmpty()) {
+                    return;
+                }
+                ready = takeBatch();
+            }
+            consumer.accept(ready);
+        }
+
+        private Batch takeBatch() {
+            Batch batch = new Batch(items, folderMediaCount);
+            items = new ArrayList<>();
+            folderMediaCount = new HashMap<>();
+            return batch;
+        }
+    }
+
+    /**
+     * Lists one directory and forks a task per subdirectory
+     */
+    private static final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized: tasks only live inside the scan's ForkJoinPool
+        private final transient Path directory;
+        private final transient BatchSink sink;
+
+        DirectoryTask(Path directory, BatchSink sink) {
+            this.directory = directory;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            List<MediaItem> found = new ArrayList<>();
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isSymbolicLink()) {
+                            // Follow links to files only
+                            attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                            if (!attrs.isRegularFile()) {
+                                continue;
+                            }
+                        }
+                    } catch (IOException e) {
+                        continue; // Vanished or unreadable entry
+                    }
+
+                    if (attrs.isDirectory()) {
+                        DirectoryTask subtask = new DirectoryTask(entry, sink);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    } else if (attrs.isRegularFile()) {
+                        MediaItem item = createItem(entry.toFile(), attrs);
+                        if (item != null) {
+                            found.add(item);
+                        }
+                    }
+                }
+            } catch (IOException | SecurityException e) {
+                // Unreadable directory - skip it like File.listFiles() returning null
+            }
+
+            // Only track folders that directly contain media files
+            if (!found.isEmpty()) {
+                sink.accept(directory.toAbsolutePath().toString(), found);
+            }
+
+            for (DirectoryTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+    }
+
+    /**
+     * Build an item for a single media file (null if it is not media or unreadable)
+     */
+    static MediaItem createItem(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return attrs.isRegularFile() ? createItem(path.toFile(), attrs) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static MediaItem createItem(File file, BasicFileAttributes attrs) {
+        MediaItem.MediaType type;
+        if (ThumbnailGenerator.isImageFile(file)) {
+            type = MediaItem.MediaType.IMAGE;
+        } else if (ThumbnailGenerator.isVideoFile(file)) {
+            type = MediaItem.MediaType.VIDEO;
+        } else {
+            return null;
+        }
+        return new MediaItem(file, type,
+                MediaItem.FileSnapshot.of(file, attrs.size(), attrs.lastModifiedTime().toMillis()));
+    }
+
+    /**
+     * Scan a folder tree in the background
+     * onBatch is called on scanner threads as media is found (at least once if
+     * anything was found); the future completes with the total number of items
+     * after the last batch has been delivered
+     */
+    public static CompletableFuture<Integer> scan(File root, Consumer<Batch> onBatch) {
+        return scan(root, onBatch, DEFAULT_BATCH_SIZE);
+    }
+
+    public static CompletableFuture<Integer> scan(File root, Consumer<Batch> onBatch, int batchSize) {
+        BatchSink sink = new BatchSink(onBatch, batchSize);
+        return CompletableFuture.supplyAsync(() -> {
+            scanPool.invoke(new DirectoryTask(root.toPath().toAbsolutePath(), sink));
+            sink.finish();
+            return sink.total.get();
+        }, scanPool);
+    }
+
+    /**
+     * Scan a folder tree and wait for the result
+     * Fills folderMediaCount with the number of media files directly in each folder
+     */
+    public static List<MediaItem> scanAll(File root, Map<String, Integer> folderMediaCount) {
+        List<MediaItem> items = new ArrayList<>();
+        BatchSink sink = new BatchSink(batch -> {
+            items.addAll(batch.getItems());
+            folderMediaCount.putAll(batch.getFolderMediaCount());
+        }, Integer.MAX_VALUE);
+        scanPool.invoke(new DirectoryTask(root.toPath().toAbsolutePath(), sink));
+        sink.finish();
+        return items;
+    }
+}
@@ -1,8 +1,8 @@
 package com.example.pixz;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 import javafx.application.Platform;
 import javafx.geometry.Pos;
@@ -15,7 +15,6 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
 import javafx.scene.paint.Color;
@@ -39,6 +38,7 @@ public class NavigationManager {
     private final GalleryController galleryController;  // Reference to validate session
 
     private int currentIndex = 0;
+    private MediaItem shownItem; // Item on screen; currentIndex already moves before a switch
     private long lastSwitchTime = 0;
     private static final long THROTTLE_MS = 200;
 
@@ -46,10 +46,20 @@ public class NavigationManager {
     private StackPane currentContainer;
     private javafx.scene.Node currentRotatableContent; // ImageView or MediaView
     private double currentRotation = 0;
+    private double contentRotationOffset = 0; // Non-zero while an upright thumbnail stands in
+
+    // Direction of the last navigation (+1 next, -1 previous), prefetched ahead
+    private int direction = 1;
+    private static final int PREFETCH_AHEAD = 2;
+    private static final int PREFETCH_BEHIND = 1;
     
     // Zoom manager for current media
     private ZoomManager currentZoomManager;
 
+    // Deep-zoom tiles over the current image (null for videos)
+    private TiledImageLayer currentTiles;
+    private static final int MAX_DECODE_SIZE = 16384; // JavaFX texture size limit
+
     public NavigationManager(
             List<MediaItem> displayedItems,
             StackPane fullscreenViewer,
@@ -100,6 +110,7 @@ public class NavigationManager {
     public void navigateNext() {
         if (currentIndex < displayedItems.size() - 1) {
             currentIndex++;
+            direction = 1;
             switchToMedia(displayedItems.get(currentIndex));
         }
     }
@@ -107,6 +118,7 @@ public class NavigationManager {
     public void navigatePrevious() {
         if (currentIndex > 0) {
             currentIndex--;
+            direction = -1;
             switchToMedia(displayedItems.get(currentIndex));
         }
     }
@@ -127,17 +139,23 @@ public class NavigationManager {
         }
         lastSwitchTime = now;
 
-        // Save last playback position
-        MediaItem currentItem = getCurrentItem();
-        if (currentItem != null && currentItem.getType() == MediaItem.MediaType.VIDEO) {
+        // Save last playback position of the outgoing video
+        if (shownItem != null && shownItem.getType() == MediaItem.MediaType.VIDEO) {
             double currentTime = mediaController.getCurrentTimeSeconds();
             if (currentTime > 0) {
-                currentItem.setLastPlaybackPosition(currentTime);
+                shownItem.setLastPlaybackPosition(currentTime);
             }
         }
+        shownItem = item;
 
         // Reset rotation
         currentRotation = 0;
+        contentRotationOffset = 0;
+
+        if (currentTiles != null) {
+            currentTiles.dispose();
+            currentTiles = null;
+        }
 
         if (item.getType() == MediaItem.MediaType.IMAGE) {
             switchToImage(item);
@@ -153,8 +171,125 @@ public class NavigationManager {
         // Request focus
         Platform.runLater(() -> fullscreenViewer.requestFocus());
 
-        // FIX #6: Preload next video metadata
-        preloadNextVideoMetadata();
+        prepareStandbyVideo();
+        prefetchNeighborImages();
+    }
+
+    /**
+     * Swap a decode into the image view (replacing the thumbnail placeholder or a
+     * lower-resolution decode); a late decode never replaces a sharper one
+     */
+    private void showDecodedImage(ImageView imageView, Image image, StackPane container) {
+        Image shown = imageView.getImage();
+        if (shown != null && contentRotationOffset == 0 && shown.getWidth() > image.getWidth()) {
+            return;
+        }
+        contentRotationOffset = 0;
+        imageView.setRotate(currentRotation);
+        imageView.setImage(image);
+        updateImageFit(imageView, image, container);
+        if (currentTiles != null) {
+            currentTiles.update();
+        }
+    }
+
+    /**
+     * Bring the image up to the detail the container, zoom and pan need: a sharper
+     * whole-image decode for the container size and deep-zoom tiles beyond that (or
+     * a zoomed whole-image decode for files that cannot be tiled)
+     */
+    private void refreshImageDetail(MediaItem item, ImageView imageView, StackPane container) {
+        // While the upright thumbnail stands in, tiles would come out rotated: wait
+        boolean tiled = currentTiles != null && (contentRotationOffset != 0 || currentTiles.update());
+        double zoom = !tiled && currentZoomManager != null ? currentZoomManager.getCurrentZoom() : 1.0;
+        upgradeImageResolution(item, imageView, container, zoom);
+    }
+
+    /**
+     * Re-decode the current image when the container or the zoom level needs more
+     * pixels than the displayed decode has. Zoom is rounded up to a power of two, so
+     * zooming in step by step re-decodes at most a few times
+     */
+    private void upgradeImageResolution(MediaItem item, ImageView imageView, StackPane container, double zoom) {
+        Image image = imageView.getImage();
+        if (image == null || currentRotatableContent != imageView) {
+            return;
+        }
+        int factor = 1;
+        while (factor < zoom) {
+            factor *= 2;
+        }
+        int[] box = decodeBox((int) currentRotation, factor);
+        if (contentRotationOffset == 0 && ViewerImageCache.covers(item, image, box[0], box[1])) {
+            return;
+        }
+        ViewerImageCache.load(item, box[0], box[1]).thenAccept(sharper -> Platform.runLater(() -> {
+            if (sharper != null && isValidSession() && currentRotatableContent == imageView) {
+                showDecodedImage(imageView, sharper, container);
+            }
+        }));
+    }
+
+    /**
+     * Decode the images around the current item (mostly in the direction of travel)
+     * so the next key press shows them at once; cancels prefetches left over from
+     * earlier positions
+     */
+    private void prefetchNeighborImages() {
+        List<MediaItem> neighbors = new ArrayList<>();
+        for (int step = 1; step <= PREFETCH_AHEAD; step++) {
+            addImageAt(neighbors, currentIndex + direction * step);
+        }
+        for (int step = 1; step <= PREFETCH_BEHIND; step++) {
+            addImageAt(neighbors, currentIndex - direction * step);
+        }
+
+        List<MediaItem> keep = new ArrayList<>(neighbors);
+        MediaItem current = getCurrentItem();
+        if (current != null) {
+            keep.add(current); // Its own decode may still be queued
+        }
+        ViewerImageCache.retainOnly(keep);
+
+        // Screen-size box; each neighbour's rotation is applied on the decode thread
+        int[] box = decodeBox(0, 1);
+        for (MediaItem neighbor : neighbors) {
+            ViewerImageCache.prefetch(neighbor, box[0], box[1]);
+        }
+    }
+
+    private void addImageAt(List<MediaItem> items, int index) {
+        if (index >= 0 && index < displayedItems.size()
+                && displayedItems.get(index).getType() == MediaItem.MediaType.IMAGE) {
+            items.add(displayedItems.get(index));
+        }
+    }
+
+    /**
+     * Decode size in device pixels for the image container times zoomFactor, in
+     * stored image orientation (width and height swapped for images displayed
+     * rotated by 90 or 270)
+     */
+    private int[] decodeBox(int rotation, int zoomFactor) {
+        StackPane container = currentContainer != null && currentContainer.getWidth() > 0
+                ? currentContainer : fullscreenViewer;
+        double width = container.getWidth();
+        double height = container.getHeight();
+        double scaleX = 1.0;
+        double scaleY = 1.0;
+        if (fullscreenViewer.getScene() != null && fullscreenViewer.getScene().getWindow() != null) {
+            scaleX = fullscreenViewer.getScene().getWindow().getOutputScaleX();
+            scaleY = fullscreenViewer.getScene().getWindow().getOutputScaleY();
+        }
+        if (width <= 0 || height <= 0) {
+            // Not laid out yet: assume the primary screen
+            javafx.geometry.Rectangle2D bounds = javafx.stage.Screen.getPrimary().getBounds();
+            width = bounds.getWidth();
+            height = bounds.getHeight();
+        }
+        int boxWidth = (int) Math.min(MAX_DECODE_SIZE, Math.ceil(width * scaleX * zoomFactor));
+        int boxHeight = (int) Math.min(MAX_DECODE_SIZE, Math.ceil(height * scaleY * zoomFactor));
+        return rotation % 180 != 0 ? new int[] { boxHeight, boxWidth } : new int[] { boxWidth, boxHeight };
     }
 
     private void switchToImage(MediaItem item) {
@@ -183,52 +318,63 @@ public class NavigationManager {
         imageView.setSmooth(true);
         imageView.setCache(true);
         
-        // Load image
-        try {
-            Image image = new Image(item.getFile().toURI().toString(), true);
-            imageView.setImage(image);
-            
-            // Get initial rotation from metadata
-            int initialRotation = MediaMetadataUtils.getRotation(item.getFile());
-            currentRotation = initialRotation;
-            
-            // Apply rotation BEFORE sizing
-            imageView.setRotate(initialRotation);
-            
-            // Apply smart sizing once image is loaded
-            image.progressProperty().addListener((obs, oldProgress, newProgress) -> {
-                if (newProgress.doubleValue() >= 1.0) {
-                    Platform.runLater(() -> {
-                        updateImageFit(imageView, image, imageContainer);
-                    });
-                }
-            });
-            
-            // If image is already loaded, apply sizing immediately
-            if (image.getProgress() >= 1.0) {
-                updateImageFit(imageView, image, imageContainer);
+        // Get initial rotation from metadata (cached once the file has been seen)
+        int initialRotation = MediaMetadataUtils.getMetadata(item).getRotation();
+        currentRotation = initialRotation;
+        contentRotationOffset = 0;
+
+        // Apply rotation BEFORE sizing
+        imageView.setRotate(initialRotation);
+
+        // Decode at screen size: instant when prefetched or recently viewed
+        int[] box = decodeBox(initialRotation, 1);
+        Image cached = ViewerImageCache.getCached(item, box[0], box[1]);
+        if (cached != null) {
+            imageView.setImage(cached);
+        } else {
+            // Show the (already upright) thumbnail until the decode arrives
+            Image thumbnail = item.getThumbnail();
+            if (thumbnail != null) {
+                contentRotationOffset = -initialRotation;
+                imageView.setRotate(0);
+                imageView.setImage(thumbnail);
             }
-            
-            // Listen for container size changes
-            imageContainer.widthProperty().addListener((obs, oldVal, newVal) -> {
-                if (image.getProgress() >= 1.0) {
-                    updateImageFit(imageView, image, imageContainer);
+            ViewerImageCache.load(item, box[0], box[1]).thenAccept(image -> Platform.runLater(() -> {
+                if (!isValidSession() || currentRotatableContent != imageView) {
+                    return; // Navigated away meanwhile
                 }
-            });
-            imageContainer.heightProperty().addListener((obs, oldVal, newVal) -> {
-                if (image.getProgress() >= 1.0) {
-                    updateImageFit(imageView, image, imageContainer);
+                if (image == null) {
+                    Label errorLabel = new Label("Cannot load image:\n" + item.getFile().getName());
+                    errorLabel.setTextFill(Color.WHITE);
+                    errorLabel.setFont(Font.font(14));
+                    imageContainer.getChildren().add(errorLabel);
+                    return;
                 }
-            });
-            
-        } catch (Exception e) {
-            Label errorLabel = new Label("Cannot load image:\n" + e.getMessage());
-            errorLabel.setTextFill(Color.WHITE);
-            errorLabel.setFont(Font.font(14));
-            imageContainer.getChildren().add(errorLabel);
+                showDecodedImage(imageView, image, imageContainer);
+            }));
+        }
+
+        // Apply smart sizing now and whenever the container size changes (a larger
+        // container may need a sharper decode)
+        if (imageView.getImage() != null) {
+            updateImageFit(imageView, imageView.getImage(), imageContainer);
         }
+        imageContainer.widthProperty().addListener((obs, oldVal, newVal) -> {
+            if (imageView.getImage() != null) {
+                updateImageFit(imageView, imageView.getImage(), imageContainer);
+                refreshImageDetail(item, imageView, imageContainer);
+            }
+        });
+        imageContainer.heightProperty().addListener((obs, oldVal, newVal) -> {
+            if (imageView.getImage() != null) {
+                updateImageFit(imageView, imageView.getImage(), imageContainer);
+                refreshImageDetail(item, imageView, imageContainer);
+            }
+        });
 
         imageContainer.getChildren().add(imageView);
+        currentTiles = new TiledImageLayer(item, imageView, imageContainer);
+        imageContainer.getChildren().add(currentTiles.getNode());
         currentContainer = imageContainer;
         currentRotatableContent = imageView; // Track ImageView for rotation
         
@@ -237,6 +383,7 @@ public class NavigationManager {
             currentZoomManager.cleanup();
         }
         currentZoomManager = new ZoomManager(imageView, imageContainer);
+        currentZoomManager.setOnViewChanged(() -> refreshImageDetail(item, imageView, imageContainer));
 
         // Add to viewer
         fullscreenViewer.getChildren().add(imageContainer);
@@ -294,226 +441,223 @@ public class NavigationManager {
         StackPane loadingSpinner = createLoadingSpinner();
         fullscreenViewer.getChildren().add(loadingSpinner);
 
-        // FIX #3: Add 150ms delay to prevent race condition
-        javafx.animation.PauseTransition delay = new javafx.animation.PauseTransition(javafx.util.Duration.millis(150));
-        delay.setOnFinished(e -> {
-            // 🔥 CRITICAL GUARD - Validate session BEFORE loadVideo
-            if (!isValidSession() || !isViewerActive.getAsBoolean()) {
-                return;
-            }
-            
-            // Load video
-            File videoFile = item.getFile();
-            mediaController.loadVideo(
-                videoFile,
-                // onReady
-                () -> {
-                    // Validate session before any UI updates
-                    if (!isValidSession()) {
-                        return;
-                    }
-                    
-                    // Check if viewer is still active (not being closed)
-                    if (!isViewerActive.getAsBoolean()) {
-                        return;
-                    }
-                    
-                    // Guard against loading spinner already removed
-                    if (!fullscreenViewer.getChildren().contains(loadingSpinner)) {
-                        return;
-                    }
-                    
-                    fullscreenViewer.getChildren().remove(loadingSpinner);
-                    
-                    // Create video container that fills the fullscreen viewer
-                    StackPane videoContainer = new StackPane();
-                    videoContainer.setStyle("-fx-background-color: black;");
-                    videoContainer.setAlignment(Pos.CENTER);
-                    
-                    // CRITICAL: Prevent container from growing with rotated content
-                    videoContainer.setMinSize(0, 0);
-                    videoContainer.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
-                    
-                    // CRITICAL FIX: Bind to fullscreenViewer dimensions
-                    videoContainer.prefWidthProperty().bind(fullscreenViewer.widthProperty());
-                    videoContainer.prefHeightProperty().bind(fullscreenViewer.heightProperty());
-
-                    // Create MediaView directly (no extra container layer)
-                    MediaView mediaView = new MediaView();
-                    mediaView.setMediaPlayer(mediaController.getMediaPlayer());
-                    mediaView.setPreserveRatio(true);
-                    mediaView.setSmooth(true);
-                    
-                    // Ensure viewport shows full video (no cropping)
-                    mediaView.setViewport(null);
-                    
-                    // Get rotation from video metadata
-                    int rotation = MediaMetadataUtils.getRotation(videoFile);
-                    currentRotation = rotation; // Track initial rotation
-                    
-                    // Create wrapper for centering (NO rotation applied)
-                    // Videos with rotation metadata are already stored rotated in the file
-                    StackPane mediaWrapper = new StackPane(mediaView);
-                    mediaWrapper.setAlignment(Pos.CENTER);
-                    mediaWrapper.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        // 🔥 CRITICAL GUARD - Validate session BEFORE loadVideo
+        if (!isValidSession() || !isViewerActive.getAsBoolean()) {
+            return;
+        }
+        
+        // Load video right away: MediaController waits for the previous pipeline's
+        // teardown only when it was disposed a moment ago
+        File videoFile = item.getFile();
+        mediaController.loadVideo(
+            videoFile,
+            item.getLastPlaybackPosition(),
+            // onReady
+            () -> {
+                // Validate session before any UI updates
+                if (!isValidSession()) {
+                    return;
+                }
+                
+                // Check if viewer is still active (not being closed)
+                if (!isViewerActive.getAsBoolean()) {
+                    return;
+                }
+                
+                // Guard against loading spinner already removed
+                if (!fullscreenViewer.getChildren().contains(loadingSpinner)) {
+                    return;
+                }
+                
+                fullscreenViewer.getChildren().remove(loadingSpinner);
+                
+                // Create video container that fills the fullscreen viewer
+                StackPane videoContainer = new StackPane();
+                videoContainer.setStyle("-fx-background-color: black;");
+                videoContainer.setAlignment(Pos.CENTER);
+                
+                // CRITICAL: Prevent container from growing with rotated content
+                videoContainer.setMinSize(0, 0);
+                videoContainer.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+                
+                // CRITICAL FIX: Bind to fullscreenViewer dimensions
+                videoContainer.prefWidthProperty().bind(fullscreenViewer.widthProperty());
+                videoContainer.prefHeightProperty().bind(fullscreenViewer.heightProperty());
+
+                // Create MediaView directly (no extra container layer)
+                MediaView mediaView = new MediaView();
+                mediaView.setMediaPlayer(mediaController.getMediaPlayer());
+                mediaView.setPreserveRatio(true);
+                mediaView.setSmooth(true);
+                
+                // Ensure viewport shows full video (no cropping)
+                mediaView.setViewport(null);
+                
+                // Get rotation from video metadata
+                int rotation = MediaMetadataUtils.getMetadata(item).getRotation();
+                currentRotation = rotation; // Track initial rotation
+                
+                // Create wrapper for centering (NO rotation applied)
+                // Videos with rotation metadata are already stored rotated in the file
+                StackPane mediaWrapper = new StackPane(mediaView);
+                mediaWrapper.setAlignment(Pos.CENTER);
+                mediaWrapper.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+                
+                // Apply smart sizing once video dimensions are available
+                MediaPlayer player = mediaController.getMediaPlayer();
+                if (player != null && player.getMedia() != null) {
+                    // Listen for when video dimensions become available
+                    player.getMedia().widthProperty().addListener((obs, oldWidth, newWidth) -> {
+                        if (newWidth.intValue() > 0 && player.getMedia().getHeight() > 0) {
+                            Platform.runLater(() -> {
+                                // Wait for container to be laid out
+                                if (videoContainer.getWidth() > 0 && videoContainer.getHeight() > 0) {
+                                    double containerW = videoContainer.getWidth();
+                                    double containerH = videoContainer.getHeight();
+                                    controlsBar.updateVideoFit(mediaView, containerW, containerH, rotation);
+                                }
+                            });
+                        }
+                    });
                     
-                    // Apply smart sizing once video dimensions are available
-                    MediaPlayer player = mediaController.getMediaPlayer();
-                    if (player != null && player.getMedia() != null) {
-                        // Listen for when video dimensions become available
-                        player.getMedia().widthProperty().addListener((obs, oldWidth, newWidth) -> {
-                            if (newWidth.intValue() > 0 && player.getMedia().getHeight() > 0) {
-                                Platform.runLater(() -> {
-                                    // Wait for container to be laid out
-                                    if (videoContainer.getWidth() > 0 && videoContainer.getHeight() > 0) {
-                                        double containerW = videoContainer.getWidth();
-                                        double containerH = videoContainer.getHeight();
-                                        controlsBar.updateVideoFit(mediaView, containerW, containerH, rotation);
-                                    }
-                                });
-                            }
-                        });
+                    // Wait for container to be laid out before sizing
+                    // Use layoutBounds listener to get actual dimensions after layout
+                    videoContainer.layoutBoundsProperty().addListener((obs, oldBounds, newBounds) -> {
+                        double w = newBounds.getWidth();
+                        double h = newBounds.getHeight();
                         
-                        // Wait for container to be laid out before sizing
-                        // Use layoutBounds listener to get actual dimensions after layout
-                        videoContainer.layoutBoundsProperty().addListener((obs, oldBounds, newBounds) -> {
-                            double w = newBounds.getWidth();
-                            double h = newBounds.getHeight();
-                            
-                            if (w > 0 && h > 0 && player != null && player.getMedia() != null &&
-                                player.getMedia().getWidth() > 0 && player.getMedia().getHeight() > 0) {
-                                controlsBar.updateVideoFit(mediaView, w, h, (int)currentRotation);
-                            }
-                        });
-                    }
+                        if (w > 0 && h > 0 && player != null && player.getMedia() != null &&
+                            player.getMedia().getWidth() > 0 && player.getMedia().getHeight() > 0) {
+                            controlsBar.updateVideoFit(mediaView, w, h, (int)currentRotation);
+                        }
+                    });
+                }
 
-                    // Create overlay for buffering label
-                    StackPane overlay = new StackPane();
-                    overlay.setAlignment(Pos.CENTER);
-                    overlay.setPickOnBounds(false);
-                    overlay.getChildren().add(controlsBar.getBufferingLabel());
+                // Create overlay for buffering label
+                StackPane overlay = new StackPane();
+                overlay.setAlignment(Pos.CENTER);
+                overlay.setPickOnBounds(false);
+                overlay.getChildren().add(controlsBar.getBufferingLabel());
+
+                // Add directly to videoContainer (no extra mediaContainer layer)
+                videoContainer.getChildren().addAll(mediaWrapper, overlay, controlsBar.getRoot());
+                
+                // Ensure proper alignment and layering
+                StackPane.setAlignment(mediaWrapper, Pos.CENTER);
+                StackPane.setAlignment(controlsBar.getRoot(), Pos.BOTTOM_CENTER);
+                StackPane.setAlignment(overlay, Pos.CENTER);
+                
+                currentContainer = videoContainer;
+                currentRotatableContent = mediaView; // Track MediaView for manual rotation
+                
+                // Setup zoom manager for video
+                if (currentZoomManager != null) {
+                    currentZoomManager.cleanup();
+                }
+                currentZoomManager = new ZoomManager(mediaView, videoContainer);
+
+                fullscreenViewer.getChildren().add(videoContainer);
+                
+                // Add click-to-pause/play functionality
+                videoContainer.setOnMouseClicked(evt -> {
+                    mediaController.togglePlayPause();
+                    evt.consume();
+                });
+
+                // Rebuild top bar to ensure it's on top of video
+                Platform.runLater(() -> {
+                    onTopBarRebuild.run();
+                });
 
-                    // Add directly to videoContainer (no extra mediaContainer layer)
-                    videoContainer.getChildren().addAll(mediaWrapper, overlay, controlsBar.getRoot());
+                // Add mouse movement handler for top bar and controls auto-hide (same as images)
+                final javafx.animation.PauseTransition[] hideTimer = {null};
+                videoContainer.setOnMouseMoved(evt -> {
+                    // Show cursor
+                    videoContainer.setCursor(javafx.scene.Cursor.DEFAULT);
                     
-                    // Ensure proper alignment and layering
-                    StackPane.setAlignment(mediaWrapper, Pos.CENTER);
-                    StackPane.setAlignment(controlsBar.getRoot(), Pos.BOTTOM_CENTER);
-                    StackPane.setAlignment(overlay, Pos.CENTER);
+                    // Show top bar
+                    fullscreenViewer.getChildren().stream()
+                        .filter(node -> node instanceof HBox)
+                        .forEach(node -> {
+                            node.setVisible(true);
+                            node.setOpacity(1.0);
+                        });
                     
-                    currentContainer = videoContainer;
-                    currentRotatableContent = mediaView; // Track MediaView for manual rotation
+                    // Show bottom controls
+                    controlsBar.resetIdleTimer();
                     
-                    // Setup zoom manager for video
-                    if (currentZoomManager != null) {
-                        currentZoomManager.cleanup();
+                    // Reset hide timer
+                    if (hideTimer[0] != null) {
+                        hideTimer[0].stop();
                     }
-                    currentZoomManager = new ZoomManager(mediaView, videoContainer);
-
-                    fullscreenViewer.getChildren().add(videoContainer);
-                    
-                    // Add click-to-pause/play functionality
-                    videoContainer.setOnMouseClicked(evt -> {
-                        mediaController.togglePlayPause();
-                        evt.consume();
-                    });
-
-                    // Rebuild top bar to ensure it's on top of video
-                    Platform.runLater(() -> {
-                        onTopBarRebuild.run();
-                    });
-
-                    // Add mouse movement handler for top bar and controls auto-hide (same as images)
-                    final javafx.animation.PauseTransition[] hideTimer = {null};
-                    videoContainer.setOnMouseMoved(evt -> {
-                        // Show cursor
-                        videoContainer.setCursor(javafx.scene.Cursor.DEFAULT);
-                        
-                        // Show top bar
-                        fullscreenViewer.getChildren().stream()
-                            .filter(node -> node instanceof HBox)
-                            .forEach(node -> {
-                                node.setVisible(true);
-                                node.setOpacity(1.0);
-                            });
-                        
-                        // Show bottom controls
-                        controlsBar.resetIdleTimer();
-                        
-                        // Reset hide timer
-                        if (hideTimer[0] != null) {
-                            hideTimer[0].stop();
-                        }
-                        hideTimer[0] = new javafx.animation.PauseTransition(javafx.util.Duration.seconds(3));
-                        hideTimer[0].setOnFinished(hideEvt -> {
-                            // Hide cursor and top bar after 3 seconds of no movement
-                            videoContainer.setCursor(javafx.scene.Cursor.NONE);
-                            fullscreenViewer.getChildren().stream()
-                                .filter(node -> node instanceof HBox)
-                                .forEach(node -> node.setOpacity(0.0));
-                        });
-                        hideTimer[0].play();
-                    });
-
-                    // Initial hide after 3 seconds
-                    javafx.animation.PauseTransition initialHide = new javafx.animation.PauseTransition(javafx.util.Duration.seconds(3));
-                    initialHide.setOnFinished(initHideEvt -> {
+                    hideTimer[0] = new javafx.animation.PauseTransition(javafx.util.Duration.seconds(3));
+                    hideTimer[0].setOnFinished(hideEvt -> {
+                        // Hide cursor and top bar after 3 seconds of no movement
                         videoContainer.setCursor(javafx.scene.Cursor.NONE);
                         fullscreenViewer.getChildren().stream()
                             .filter(node -> node instanceof HBox)
                             .forEach(node -> node.setOpacity(0.0));
                     });
-                    initialHide.play();
+                    hideTimer[0].play();
+                });
 
-                    // Bind controls and play
-                    controlsBar.bindToPlayer();
-                    controlsBar.setVisible(true);
-                    controlsBar.resetIdleTimer();
-                    mediaController.play();
-                },
-                // onError
-                (title, detail, filePath) -> {
-                    // Validate session before any UI updates
-                    if (!isValidSession()) {
-                        return;
-                    }
-                    
-                    // Check if viewer is still active (not being closed)
-                    if (!isViewerActive.getAsBoolean()) {
-                        return;
-                    }
-                    fullscreenViewer.getChildren().remove(loadingSpinner);
-                    showVideoErrorUI(title, detail, filePath);
-                },
-                // onStalled
-                () -> {
-                    // Validate session before any UI updates
-                    if (!isValidSession()) {
-                        return;
-                    }
-                    
-                    // Check if viewer is still active (not being closed)
-                    if (!isViewerActive.getAsBoolean()) {
-                        return;
-                    }
-                    controlsBar.showBuffering();
-                },
-                // onPlaying
-                () -> {
-                    // Validate session before any UI updates
-                    if (!isValidSession()) {
-                        return;
-                    }
-                    
-                    // Check if viewer is still active (not being closed)
-                    if (!isViewerActive.getAsBoolean()) {
-                        return;
-                    }
-                    controlsBar.hideBuffering();
+                // Initial hide after 3 seconds
+                javafx.animation.PauseTransition initialHide = new javafx.animation.PauseTransition(javafx.util.Duration.seconds(3));
+                initialHide.setOnFinished(initHideEvt -> {
+                    videoContainer.setCursor(javafx.scene.Cursor.NONE);
+                    fullscreenViewer.getChildren().stream()
+                        .filter(node -> node instanceof HBox)
+                        .forEach(node -> node.setOpacity(0.0));
+                });
+                initialHide.play();
+
+                // Bind controls and play
+                controlsBar.bindToPlayer();
+                controlsBar.setVisible(true);
+                controlsBar.resetIdleTimer();
+                mediaController.play();
+            },
+            // onError
+            (title, detail, filePath) -> {
+                // Validate session before any UI updates
+                if (!isValidSession()) {
+                    return;
                 }
-            );
-        });
-        delay.play();
+                
+                // Check if viewer is still active (not being closed)
+                if (!isViewerActive.getAsBoolean()) {
+                    return;
+                }
+                fullscreenViewer.getChildren().remove(loadingSpinner);
+                showVideoErrorUI(title, detail, filePath);
+            },
+            // onStalled
+            () -> {
+                // Validate session before any UI updates
+                if (!isValidSession()) {
+                    return;
+                }
+                
+                // Check if viewer is still active (not being closed)
+                if (!isViewerActive.getAsBoolean()) {
+                    return;
+                }
+                controlsBar.showBuffering();
+            },
+            // onPlaying
+            () -> {
+                // Validate session before any UI updates
+                if (!isValidSession()) {
+                    return;
+                }
+                
+                // Check if viewer is still active (not being closed)
+                if (!isViewerActive.getAsBoolean()) {
+                    return;
+                }
+                controlsBar.hideBuffering();
+            }
+        );
     }
 
     private StackPane createLoadingSpinner() {
@@ -573,7 +717,7 @@ public class NavigationManager {
             try {
                 java.awt.Desktop.getDesktop().open(new File(filePath));
             } catch (Exception ex) {
-                ex.printStackTrace();
+                Log.error("Cannot open " + filePath, ex);
             }
         });
 
@@ -598,23 +742,17 @@ public class NavigationManager {
     }
 
     /**
-     * FIX #6: Preload next video metadata on background thread.
+     * Keep a paused standby player for the adjacent video in the direction of travel,
+     * so navigating to it starts playback at once; any other standby is disposed.
      */
-    private void preloadNextVideoMetadata() {
-        int nextIdx = currentIndex + 1;
-        if (nextIdx < displayedItems.size()) {
+    private void prepareStandbyVideo() {
+        int nextIdx = currentIndex + direction;
+        if (nextIdx >= 0 && nextIdx < displayedItems.size()
+                && displayedItems.get(nextIdx).getType() == MediaItem.MediaType.VIDEO) {
             MediaItem nextItem = displayedItems.get(nextIdx);
-            if (nextItem.getType() == MediaItem.MediaType.VIDEO) {
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        // Just construct Media — reads metadata without rendering
-                        new Media(nextItem.getFile().toURI().toString());
-                        // Discard — purpose is OS file cache warming only
-                    } catch (Exception ignored) {
-                        // Silently ignore preload failures
-                    }
-                });
-            }
+            mediaController.prepareStandby(nextItem.getFile(), nextItem.getLastPlaybackPosition());
+        } else {
+            mediaController.disposeStandby();
         }
     }
 
@@ -806,12 +944,14 @@ public class NavigationManager {
         imageView.setFitWidth(displayW);
         imageView.setFitHeight(displayH);
         
-        System.out.println("[updateImageFit] Image: " + mediaW + "x" + mediaH + 
-                         ", Visual rotation: " + currentVisualRotation +
-                         ", Container (original): " + containerW + "x" + containerH +
-                         ", Container (calc): " + calcContainerW + "x" + calcContainerH +
-                         ", Scale: " + scale +
-                         ", Display size: " + displayW + "x" + displayH);
+        if (Log.isDebugEnabled()) {
+            Log.debug("[updateImageFit] Image: " + mediaW + "x" + mediaH +
+                    ", Visual rotation: " + currentVisualRotation +
+                    ", Container (original): " + containerW + "x" + containerH +
+                    ", Container (calc): " + calcContainerW + "x" + calcContainerH +
+                    ", Scale: " + scale +
+                    ", Display size: " + displayW + "x" + displayH);
+        }
     }
 
     private void rotateCurrentContainer() {
@@ -819,7 +959,7 @@ public class NavigationManager {
             currentRotation = (currentRotation + 90) % 360;
             
             // CRITICAL: Apply rotation FIRST
-            currentRotatableContent.setRotate(currentRotation);
+            currentRotatableContent.setRotate(currentRotation + contentRotationOffset);
             
             // THEN recalculate layout based on new rotation
             if (currentRotatableContent instanceof ImageView) {
@@ -827,6 +967,9 @@ public class NavigationManager {
                 Image image = imageView.getImage();
                 if (image != null && currentContainer != null) {
                     updateImageFit(imageView, image, currentContainer);
+                    if (currentTiles != null) {
+                        currentTiles.update();
+                    }
                 }
             } else if (currentRotatableContent instanceof MediaView) {
                 // MediaView rotation - apply visual rotation for manual rotation only
@@ -0,0 +1,293 @@
+package com.example.pixz;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Standalone micro-benchmarks for hot paths (run manually, not part of the app)
+ *
+ * Usage: PerformanceBenchmark [pixels | scan [dir] | keys]
+ * - pixels: JavaFX Image -> BufferedImage transfer and JPEG encode, per-pixel vs bulk
+ * - scan: recursive File.listFiles vs parallel MediaScanner on a synthetic tree of
+ *   200k files (created under dir, default java.io.tmpdir/pixz-scan-bench, and reused)
+ * - keys: thumbnail cache key generation, MD5 + hex vs XXH64, and the per-item cached key
+ */
+public class PerformanceBenchmark {
+    private static final int WARMUP_MILLIS = 2000;
+    private static final int MEASURE_MILLIS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "pixels";
+        switch (mode) {
+            case "pixels":
+                startFxToolkit();
+                benchmarkPixelTransfer();
+                Platform.exit();
+                break;
+            case "scan":
+                Path root = args.length > 1 ? Paths.get(args[1])
+                        : Paths.get(System.getProperty("java.io.tmpdir"), "pixz-scan-bench");
+                benchmarkScan(root);
+                System.exit(0);
+                break;
+            case "keys":
+                benchmarkCacheKeys();
+                break;
+            default:
+                System.err.println("Unknown benchmark: " + mode);
+                System.exit(1);
+        }
+    }
+
+    private static void startFxToolkit() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+    }
+
+    // ---- pixels ----
+
+    private static void benchmarkPixelTransfer() throws Exception {
+        int[][] sizes = { { 300, 300 }, { 300, 200 }, { 1024, 768 }, { 1920, 1080 } };
+
+        for (int[] size : sizes) {
+            Image image = createNoiseImage(size[0], size[1]);
+            String label = size[0] + "x" + size[1];
+
+            double legacyCopy = measure(() -> legacyCopy(image));
+            int[] scratch = new int[size[0] * size[1]];
+            double bulkCopy = measure(() -> ThumbnailCache.copyPixels(image, scratch, size[0], size[1]));
+            System.out.printf("copy   %-10s per-pixel %10.1f ops/s   bulk %10.1f ops/s   (x%.1f)%n",
+                    label, legacyCopy, bulkCopy, bulkCopy / legacyCopy);
+
+            double legacyEncode = measure(() -> javax.imageio.ImageIO.write(legacyCopy(image), "jpg",
+                    new java.io.ByteArrayOutputStream()));
+            double bulkEncode = measure(() -> ThumbnailCache.encodeJpeg(image));
+            System.out.printf("encode %-10s per-pixel %10.1f ops/s   bulk %10.1f ops/s   (x%.1f)%n",
+                    label, legacyEncode, bulkEncode, bulkEncode / legacyEncode);
+        }
+    }
+
+    /**
+     * The original cacheThumbnail conversion: one getArgb/setRGB pair per pixel
+     */
+    private static BufferedImage legacyCopy(Image image) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        BufferedImage bImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        PixelReader pixelReader = image.getPixelReader();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                bImage.setRGB(x, y, pixelReader.getArgb(x, y) & 0x00FFFFFF);
+            }
+        }
+        return bImage;
+    }
+
+    private static Image createNoiseImage(int width, int height) {
+        int[] pixels = new int[width * height];
+        Random random = new Random(42);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return image;
+    }
+
+    // ---- scan ----
+
+    private static final int SCAN_TOP_FOLDERS = 20;
+    private static final int SCAN_SUB_FOLDERS = 20;
+    private static final int SCAN_FILES_PER_FOLDER = 500;
+
+    private static void benchmarkScan(Path root) throws Exception {
+        createSyntheticTree(root);
+        File rootFolder = root.toFile();
+
+        int legacyCount = legacyScan(rootFolder, new ArrayList<>(), new HashMap<>());
+        int scannerCount = MediaScanner.scanAll(rootFolder, new HashMap<>()).size();
+        System.out.printf("tree %s: %d media files (legacy found %d)%n", root, scannerCount, legacyCount);
+
+        double legacy = measure(() -> legacyScan(rootFolder, new ArrayList<>(), new HashMap<>()));
+        double parallel = measure(() -> MediaScanner.scanAll(rootFolder, new HashMap<>()));
+        System.out.printf("full scan   listFiles %8.1f ms   MediaScanner %8.1f ms   (x%.1f)%n",
+                1000 / legacy, 1000 / parallel, parallel / legacy);
+
+        // Time until the UI would receive its first batch (average of 5 streamed scans)
+        long firstBatchNanos = 0;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            AtomicLong first = new AtomicLong();
+            MediaScanner.scan(rootFolder, batch -> first.compareAndSet(0, System.nanoTime() - start)).get();
+            firstBatchNanos += first.get();
+        }
+        System.out.printf("streamed scan: first batch after %.1f ms%n", firstBatchNanos / 5 / 1e6);
+    }
+
+    /**
+     * 20 x 20 folders x 500 files; every 10th file is a video, every 25th is not media
+     */
+    private static void createSyntheticTree(Path root) throws IOException {
+        Path marker = root.resolve(".complete");
+        if (Files.exists(marker)) {
+            return;
+        }
+        System.out.println("Creating synthetic tree under " + root + " ...");
+        int n = 0;
+        for (int top = 0; top < SCAN_TOP_FOLDERS; top++) {
+            for (int sub = 0; sub < SCAN_SUB_FOLDERS; sub++) {
+                Path folder = root.resolve("album-" + top).resolve("event-" + sub);
+                Files.createDirectories(folder);
+                for (int i = 0; i < SCAN_FILES_PER_FOLDER; i++, n++) {
+                    String extension = n % 25 == 0 ? ".txt" : n % 10 == 0 ? ".mp4" : ".jpg";
+                    Path file = folder.resolve("IMG_" + n + extension);
+                    if (!Files.exists(file)) {
+                        Files.createFile(file);
+                    }
+                }
+            }
+        }
+        Files.createFile(marker);
+    }
+
+    /**
+     * The original GalleryController.scanFolderRecursive: listFiles plus isDirectory,
+     * isFile, length and lastModified per entry
+     */
+    private static int legacyScan(File folder, List<MediaItem> items, Map<String, Integer> folderMediaCount) {
+        File[] files = folder.listFiles();
+        int mediaFilesInThisFolder = 0;
+
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    legacyScan(file, items, folderMediaCount);
+                } else if (file.isFile()) {
+                    MediaItem.MediaType type = ThumbnailGenerator.isImageFile(file) ? MediaItem.MediaType.IMAGE
+                            : ThumbnailGenerator.isVideoFile(file) ? MediaItem.MediaType.VIDEO : null;
+                    if (type != null) {
+                        MediaItem item = new MediaItem(file, type,
+                                MediaItem.FileSnapshot.of(file, file.length(), file.lastModified()));
+                        items.add(item);
+                        mediaFilesInThisFolder++;
+                    }
+                }
+            }
+        }
+
+        if (mediaFilesInThisFolder > 0) {
+            folderMediaCount.put(folder.getAbsolutePath(), mediaFilesInThisFolder);
+        }
+        return items.size();
+    }
+
+    // ---- keys ----
+
+    private static void benchmarkCacheKeys() throws Exception {
+        int count = 10_000;
+        String[] paths = new String[count];
+        long[] mtimes = new long[count];
+        MediaItem[] items = new MediaItem[count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            paths[i] = "/home/user/Pictures/" + (2000 + random.nextInt(25)) + "/Trip " + random.nextInt(100)
+                    + "/IMG_" + (1000 + random.nextInt(9000)) + ".JPG";
+            mtimes[i] = 1_500_000_000_000L + random.nextInt(Integer.MAX_VALUE);
+            File file = new File(paths[i]);
+            items[i] = new MediaItem(file, MediaItem.MediaType.IMAGE, MediaItem.FileSnapshot.of(file, 1, mtimes[i]));
+        }
+
+        int[] next = { 0 };
+        double md5 = measure(() -> {
+            int i = next[0]++ % count;
+            return legacyCacheKey(paths[i], mtimes[i]);
+        });
+        double xxh64 = measure(() -> {
+            int i = next[0]++ % count;
+            return ThumbnailCache.getCacheKey(paths[i], mtimes[i]);
+        });
+        double cached = measure(() -> items[next[0]++ % count].getThumbnailKey());
+        System.out.printf("keys   md5+hex %12.0f keys/s   xxh64 %12.0f keys/s (x%.1f)   cached %12.0f keys/s%n",
+                md5, xxh64, xxh64 / md5, cached);
+    }
+
+    /**
+     * Copy of the previous key scheme: MD5 of "path_mtime", hex encoded per byte
+     */
+    private static String legacyCacheKey(String absolutePath, long lastModified) throws Exception {
+        String key = absolutePath + "_" + lastModified;
+        java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
+        byte[] hash = md.digest(key.getBytes());
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1)
+                hexString.append('0');
+            hexString.append(hex);
+        }
+        return hexString.toString() + ".jpg";
+    }
+
+    // ---- harness ----
+
+    @FunctionalInterface
+    interface Operation {
+        Object run() throws Exception;
+    }
+
+    @FunctionalInterface
+    interface VoidOperation {
+        void run() throws Exception;
+    }
+
+    private static double measure(VoidOperation op) throws Exception {
+        return measure(() -> {
+            op.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run op repeatedly for a warmup period, then return operations per second
+     */
+    private static double measure(Operation op) throws Exception {
+        Object sink = null;
+        long warmupEnd = System.nanoTime() + WARMUP_MILLIS * 1_000_000L;
+        while (System.nanoTime() < warmupEnd) {
+            sink = op.run();
+        }
+
+        long count = 0;
+        long start = System.nanoTime();
+        long end = start + MEASURE_MILLIS * 1_000_000L;
+        long now;
+        do {
+            sink = op.run();
+            count++;
+            now = System.nanoTime();
+        } while (now < end);
+
+        if (sink != null && sink.hashCode() == 42) {
+            System.out.print(""); // Keep the result alive
+        }
+        return count / ((now - start) / 1e9);
+    }
+}
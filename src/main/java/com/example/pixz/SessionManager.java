@@ -71,8 +71,7 @@ public class SessionManager {
                 }
             }
         } catch (IOException e) {
-            System.err.println("Failed to save session: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Failed to save session: " + e.getMessage(), e);
         }
     }
 
@@ -108,21 +107,19 @@ public class SessionManager {
 
     /**
      * Save favorite file paths
+     * Does not check the files: the gallery drops favorites of deleted files
+     * when it removes their items, and loadFavorites skips missing ones
      */
     public static void saveFavorites(Set<String> favoritePaths) {
         Path favoritesFile = getFavoritesFilePath();
 
         try (BufferedWriter writer = Files.newBufferedWriter(favoritesFile)) {
             for (String filePath : favoritePaths) {
-                // Only save files that still exist
-                if (new File(filePath).exists()) {
-                    writer.write(filePath);
-                    writer.newLine();
-                }
+                writer.write(filePath);
+                writer.newLine();
             }
         } catch (IOException e) {
-            System.err.println("Failed to save favorites: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Failed to save favorites: " + e.getMessage(), e);
         }
     }
 
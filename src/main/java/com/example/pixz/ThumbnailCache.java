@@ -1,39 +1,83 @@
 package com.example.pixz;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelFormat;
 
 /**
  * Manages thumbnail caching to disk and memory for faster loads
- * Uses WeakReference for memory cache so GC can reclaim when needed
+ * Memory tier is a byte-budgeted LRU with a soft-reference overflow tier
+ * Disk tier is a single memory-mapped pack file (see ThumbnailPackStore)
+ * Disk writes go through a write-behind queue (see ThumbnailWriteQueue)
  * Tracks failed thumbnails to avoid repeated generation attempts
  */
 public class ThumbnailCache {
     private static final String CACHE_DIR_NAME = ".wingallery/thumbnails";
+
+    // Cache keys carry their scheme version; bump it together with the pack index
+    // version when the scheme changes, so entries under old keys are dropped
+    private static final String KEY_PREFIX = "k2-";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
     private static Path cacheDir;
 
-    // In-memory cache with WeakReference - GC can reclaim when memory is low
-    private static final ConcurrentHashMap<String, WeakReference<Image>> memoryCache = new ConcurrentHashMap<>();
+    // Memory budget for decoded thumbnails, override with -Dpixz.thumbnailCacheMB=<n>
+    private static final long DEFAULT_MEMORY_CACHE_MB = 256;
+
+    // In-memory LRU (strong refs up to budget, soft refs for overflow)
+    private static final ImageMemoryCache<String> memoryCache = new ImageMemoryCache<>(
+            getConfiguredMemoryBudgetMB() * 1024L * 1024L, true);
+
+    // Disk tier: packed thumbnails (null if the pack could not be opened)
+    private static ThumbnailPackStore packStore;
+
+    // Files whose removal is queued but not yet applied to the pack; cleared when the
+    // queue writes or discards the file's request, so lookups are never blocked for good
+    private static final Set<String> pendingRemovals = ConcurrentHashMap.newKeySet();
+
+    // Write-behind stage: encoding and pack I/O happen on its worker thread
+    private static final ThumbnailWriteQueue writeQueue = new ThumbnailWriteQueue(ThumbnailCache::writeBatch,
+            request -> {
+                if (!request.isPinned()) {
+                    pendingRemovals.remove(request.getFile().getAbsolutePath());
+                }
+            });
 
     // Track files that failed thumbnail generation
     private static final Set<String> failedThumbnails = new HashSet<>();
 
     static {
         initializeCacheDir();
+        initializePackStore();
+    }
+
+    private static long getConfiguredMemoryBudgetMB() {
+        try {
+            return Long.parseLong(System.getProperty("pixz.thumbnailCacheMB", String.valueOf(DEFAULT_MEMORY_CACHE_MB)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_MEMORY_CACHE_MB;
+        }
     }
 
     private static void initializeCacheDir() {
@@ -49,69 +93,154 @@ public class ThumbnailCache {
         }
     }
 
+    private static void initializePackStore() {
+        ThumbnailPackStore store = new ThumbnailPackStore(cacheDir);
+        try {
+            store.open();
+            packStore = store;
+        } catch (IOException e) {
+            Log.warn("Thumbnail pack unavailable, caching in memory only: " + e.getMessage());
+            return;
+        }
+
+        // The old one-JPEG-per-key cache used MD5 keys that are never looked up
+        // again; delete it in the background
+        if (hasLegacyThumbnailFiles()) {
+            Thread cleanup = new Thread(() -> ThumbnailPackStore.deleteLegacyFiles(cacheDir),
+                    "thumbnail-cache-cleanup");
+            cleanup.setDaemon(true);
+            cleanup.setPriority(Thread.MIN_PRIORITY);
+            cleanup.start();
+        }
+    }
+
+    private static boolean hasLegacyThumbnailFiles() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.jpg")) {
+            return stream.iterator().hasNext();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     /**
-     * Generate cache key from file path and last modified time
+     * Generate cache key from file path and last modified time (stats the file)
+     * Prefer MediaItem.getThumbnailKey(), which is computed once per file version
      */
     private static String getCacheKey(File file) {
-        try {
-            String key = file.getAbsolutePath() + "_" + file.lastModified();
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] hash = md.digest(key.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1)
-                    hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString() + ".jpg";
-        } catch (Exception e) {
-            return null;
+        return getCacheKey(file.getAbsolutePath(), file.lastModified());
+    }
+
+    /**
+     * Cache key for a path and modification time (no file system access)
+     * Format: KEY_PREFIX + 16 hex digits of XXH64(path, seed = mtime)
+     */
+    static String getCacheKey(String absolutePath, long lastModified) {
+        long hash = XxHash64.hash(absolutePath, lastModified);
+        char[] key = new char[KEY_PREFIX.length() + 16];
+        KEY_PREFIX.getChars(0, KEY_PREFIX.length(), key, 0);
+        for (int i = key.length - 1; i >= KEY_PREFIX.length(); i--) {
+            key[i] = HEX_DIGITS[(int) (hash & 0xF)];
+            hash >>>= 4;
         }
+        return new String(key);
+    }
+
+    /**
+     * Whether key was produced by the current key scheme (e.g. one read from the media catalog)
+     */
+    static boolean isCurrentCacheKey(String key) {
+        return key != null && key.length() == KEY_PREFIX.length() + 16 && key.startsWith(KEY_PREFIX);
     }
 
     /**
      * Get cached thumbnail - checks memory cache first, then disk
+     * Performs disk I/O: never call from the FX Application Thread
      */
     public static Image getCachedThumbnail(File file) {
-        String cacheKey = getCacheKey(file);
+        return getCachedThumbnail(file.getAbsolutePath(), getCacheKey(file));
+    }
+
+    /**
+     * Get cached thumbnail for an item's snapshot (no stat or hashing)
+     * Performs disk I/O: never call from the FX Application Thread
+     */
+    public static Image getCachedThumbnail(MediaItem item) {
+        return getCachedThumbnail(item.getPath(), item.getThumbnailKey());
+    }
+
+    private static Image getCachedThumbnail(String path, String cacheKey) {
         if (cacheKey == null)
             return null;
 
         // Check memory cache first (fastest)
-        WeakReference<Image> weakRef = memoryCache.get(cacheKey);
-        if (weakRef != null) {
-            Image image = weakRef.get();
-            if (image != null) {
-                return image; // Found in memory
-            } else {
-                // Reference was cleared by GC, remove from map
-                memoryCache.remove(cacheKey);
-            }
+        Image memoryHit = memoryCache.get(cacheKey);
+        if (memoryHit != null) {
+            return memoryHit;
         }
 
-        // Check disk cache
-        Path cachedFile = cacheDir.resolve(cacheKey);
-        if (Files.exists(cachedFile)) {
-            try {
-                // Load cached thumbnail with size constraint (should already be 300x300, but
-                // enforce it)
-                Image image = new Image(cachedFile.toUri().toString(), 300, 300, true, false, true);
+        // A queued removal means the packed copy is stale
+        if (pendingRemovals.contains(path))
+            return null;
 
+        // Check pack file (map lookup + zero-copy slice)
+        ByteBuffer packed = packStore != null ? packStore.read(cacheKey) : null;
+        if (packed != null) {
+            // Load cached thumbnail with size constraint (should already be 300x300, but
+            // enforce it)
+            Image image = new Image(ThumbnailPackStore.asInputStream(packed), 300, 300, true, false);
+            if (!image.isError() && image.getWidth() > 0) {
                 // Store in memory cache for next time
-                memoryCache.put(cacheKey, new WeakReference<>(image));
+                memoryCache.put(cacheKey, image);
                 return image;
-            } catch (Exception e) {
-                // Cache file corrupted, will regenerate
-                try {
-                    Files.deleteIfExists(cachedFile);
-                } catch (IOException ignored) {
-                }
             }
+            // Entry corrupted, will regenerate
+            packStore.remove(cacheKey);
         }
         return null;
     }
 
+    /**
+     * Get thumbnail from the memory tier only (never touches disk)
+     * Returns null if the thumbnail is not resident in memory
+     */
+    public static Image getMemoryCachedThumbnail(File file) {
+        String cacheKey = getCacheKey(file);
+        if (cacheKey == null)
+            return null;
+        return memoryCache.get(cacheKey);
+    }
+
+    /**
+     * Memory tier lookup by the item's precomputed key (safe on the render path)
+     */
+    public static Image getMemoryCachedThumbnail(MediaItem item) {
+        String cacheKey = item.getThumbnailKey();
+        if (cacheKey == null)
+            return null;
+        return memoryCache.get(cacheKey);
+    }
+
+    /**
+     * Put a thumbnail into the memory tier only (no disk write)
+     */
+    public static void putMemoryCachedThumbnail(File file, Image thumbnail) {
+        if (thumbnail == null)
+            return;
+        String cacheKey = getCacheKey(file);
+        if (cacheKey == null)
+            return;
+        memoryCache.put(cacheKey, thumbnail);
+    }
+
+    public static void putMemoryCachedThumbnail(MediaItem item, Image thumbnail) {
+        if (thumbnail == null)
+            return;
+        String cacheKey = item.getThumbnailKey();
+        if (cacheKey == null)
+            return;
+        memoryCache.put(cacheKey, thumbnail);
+    }
+
     /**
      * Check if an image is a placeholder (gray or black background)
      */
@@ -170,6 +299,7 @@ public class ThumbnailCache {
 
     /**
      * Save thumbnail to cache (both memory and disk)
+     * Only enqueues the write, so it is safe to call from any thread
      * Don't cache placeholders
      */
     public static void cacheThumbnail(File file, Image thumbnail) {
@@ -181,43 +311,149 @@ public class ThumbnailCache {
             return; // Skip caching placeholders
         }
 
-        String cacheKey = getCacheKey(file);
-        if (cacheKey == null)
+        writeQueue.enqueueWrite(file, thumbnail);
+    }
+
+    /**
+     * Save thumbnail under the item's precomputed key (see cacheThumbnail(File, Image))
+     */
+    public static void cacheThumbnail(MediaItem item, Image thumbnail) {
+        if (thumbnail == null || isPlaceholderImage(thumbnail))
             return;
 
-        // Store in memory cache with WeakReference
-        memoryCache.put(cacheKey, new WeakReference<>(thumbnail));
+        writeQueue.enqueueWrite(item.getFile(), thumbnail, item.getThumbnailKey());
+    }
 
-        // Store on disk for persistence
-        Path cachedFile = cacheDir.resolve(cacheKey);
+    /**
+     * Persist a batch of queued requests (runs on the writer thread)
+     * The index is flushed once per batch
+     */
+    private static void writeBatch(List<ThumbnailWriteQueue.Request> batch) {
+        for (ThumbnailWriteQueue.Request request : batch) {
+            File file = request.getFile();
+            if (request.isPinned()) {
+                // Entry of an outdated file version; never blocks lookups via pendingRemovals
+                memoryCache.remove(request.getCacheKey());
+                if (packStore != null) {
+                    packStore.remove(request.getCacheKey());
+                }
+                continue;
+            }
 
-        try {
-            // Convert JavaFX Image to BufferedImage
-            int width = (int) thumbnail.getWidth();
-            int height = (int) thumbnail.getHeight();
-            // Use TYPE_INT_RGB for JPEG (no alpha channel needed for thumbnails)
-            BufferedImage bImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-            PixelReader pixelReader = thumbnail.getPixelReader();
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    int argb = pixelReader.getArgb(x, y);
-                    // Remove alpha channel for JPEG
-                    int rgb = argb & 0x00FFFFFF;
-                    bImage.setRGB(x, y, rgb);
+            String cacheKey = request.getCacheKey() != null ? request.getCacheKey() : getCacheKey(file);
+            if (cacheKey == null) {
+                pendingRemovals.remove(file.getAbsolutePath());
+                continue;
+            }
+
+            if (request.isRemoval()) {
+                memoryCache.remove(cacheKey);
+                if (packStore != null) {
+                    packStore.remove(cacheKey);
+                }
+            } else {
+                Image thumbnail = request.getImage();
+
+                // Store in memory LRU
+                memoryCache.put(cacheKey, thumbnail);
+
+                // Store on disk for persistence
+                if (packStore != null) {
+                    try {
+                        // Encode as JPEG and append to the pack
+                        byte[] encoded = encodeJpeg(thumbnail);
+                        if (encoded != null) {
+                            packStore.put(cacheKey, encoded, (int) thumbnail.getWidth(),
+                                    (int) thumbnail.getHeight());
+                        }
+                    } catch (Exception e) {
+                        // Failed to cache, not critical
+                    }
                 }
             }
+            pendingRemovals.remove(file.getAbsolutePath());
+        }
 
-            // Save as JPEG with high quality (0.85 = 85% quality, good balance)
-            ImageIO.write(bImage, "jpg", cachedFile.toFile());
+        if (packStore != null) {
+            packStore.flush();
+        }
+    }
 
-            // Flush BufferedImage to release native resources
-            bImage.flush();
-        } catch (Exception e) {
-            // Failed to cache, not critical
+    /**
+     * Number of thumbnail writes/removals waiting on the writer thread
+     */
+    public static int getWriteQueueDepth() {
+        return writeQueue.getQueueDepth();
+    }
+
+    /**
+     * Per-thread scratch state for the encode path
+     * Reused across thumbnails so encoding only allocates the output bytes
+     */
+    private static final class EncodeScratch {
+        private BufferedImage image;
+        private int[] pixels;
+        private ImageWriter writer;
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream(64 * 1024);
+
+        BufferedImage imageFor(int width, int height) {
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                // TYPE_INT_RGB ignores the alpha byte, so ARGB ints can be written as-is
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            }
+            return image;
+        }
+
+        ImageWriter writer() {
+            if (writer == null) {
+                Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
+                writer = writers.hasNext() ? writers.next() : null;
+            }
+            return writer;
         }
     }
 
+    private static final ThreadLocal<EncodeScratch> encodeScratch = ThreadLocal.withInitial(EncodeScratch::new);
+
+    /**
+     * Bulk-copy an image's pixels as ARGB ints into dest (row stride = width)
+     */
+    static void copyPixels(Image source, int[] dest, int width, int height) {
+        source.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), dest, 0, width);
+    }
+
+    /**
+     * Encode a JavaFX image as JPEG bytes
+     * Pixels are transferred in one bulk read straight into the BufferedImage's
+     * backing int[] (no per-pixel getArgb/setRGB calls)
+     */
+    static byte[] encodeJpeg(Image image) throws IOException {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+
+        EncodeScratch scratch = encodeScratch.get();
+        BufferedImage bImage = scratch.imageFor(width, height);
+        copyPixels(image, scratch.pixels, width, height);
+
+        ImageWriter writer = scratch.writer();
+        if (writer == null) {
+            return null;
+        }
+
+        scratch.output.reset();
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(scratch.output)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(bImage, null, null), null);
+        } finally {
+            writer.setOutput(null);
+        }
+        return scratch.output.toByteArray();
+    }
+
     /**
      * Clear memory cache to free up RAM
      */
@@ -225,8 +461,23 @@ public class ThumbnailCache {
         memoryCache.clear();
     }
 
+    /**
+     * Memory tier statistics (entries, bytes, hits, misses, evictions)
+     */
+    public static String getMemoryCacheStats() {
+        return memoryCache.toString();
+    }
+
+    /**
+     * Access the memory tier directly (for hit/miss/eviction counters)
+     */
+    static ImageMemoryCache<String> getMemoryCache() {
+        return memoryCache;
+    }
+
     /**
      * Remove cached thumbnail for a specific file (both memory and disk)
+     * The disk removal is queued on the writer thread
      */
     public static void removeCachedThumbnail(File file) {
         String cacheKey = getCacheKey(file);
@@ -236,14 +487,34 @@ public class ThumbnailCache {
         // Remove from memory cache
         memoryCache.remove(cacheKey);
 
-        // Remove from disk cache
-        Path cachedFile = cacheDir.resolve(cacheKey);
-        try {
-            Files.deleteIfExists(cachedFile);
+        // Remove from disk cache (lookups skip the pack until the removal is applied)
+        pendingRemovals.add(file.getAbsolutePath());
+        writeQueue.enqueueRemoval(file);
+    }
+
+    /**
+     * Remove cached thumbnail for an item's current snapshot (both memory and disk)
+     */
+    public static void removeCachedThumbnail(MediaItem item) {
+        String cacheKey = item.getThumbnailKey();
+        if (cacheKey != null)
+            memoryCache.remove(cacheKey);
 
-        } catch (IOException ignored) {
+        pendingRemovals.add(item.getPath());
+        writeQueue.enqueueRemoval(item.getFile());
+    }
 
-        }
+    /**
+     * Remove the thumbnail cached for the file version an item's snapshot recorded
+     * Use for files that were modified or deleted since (their current key differs)
+     */
+    public static void removeOutdatedThumbnail(MediaItem item) {
+        String cacheKey = item.getThumbnailKey();
+        if (cacheKey == null)
+            return;
+
+        memoryCache.remove(cacheKey);
+        writeQueue.enqueueRemoval(item.getFile(), cacheKey);
     }
 
     /**
@@ -285,24 +556,21 @@ public class ThumbnailCache {
      * Clear old cache entries (optional cleanup)
      */
     public static void clearOldCache(int daysOld) {
-        try {
-            long cutoffTime = System.currentTimeMillis() - (daysOld * 24L * 60 * 60 * 1000);
-            Files.list(cacheDir)
-                    .filter(path -> {
-                        try {
-                            return Files.getLastModifiedTime(path).toMillis() < cutoffTime;
-                        } catch (IOException e) {
-                            return false;
-                        }
-                    })
-                    .forEach(path -> {
-                        try {
-                            Files.deleteIfExists(path);
-                        } catch (IOException ignored) {
-                        }
-                    });
-        } catch (IOException e) {
-            // Cleanup failed, not critical
+        if (packStore == null)
+            return;
+        long cutoffTime = System.currentTimeMillis() - (daysOld * 24L * 60 * 60 * 1000);
+        // Space is reclaimed by compaction the next time the pack is opened
+        packStore.removeOlderThan(cutoffTime);
+    }
+
+    /**
+     * Flush and close the disk tier (call on app exit)
+     */
+    public static void shutdown() {
+        // Give queued writes a bounded chance to reach disk
+        writeQueue.shutdown(2, TimeUnit.SECONDS);
+        if (packStore != null) {
+            packStore.close();
         }
     }
 }
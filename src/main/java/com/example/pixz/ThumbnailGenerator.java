@@ -1,12 +1,17 @@
 package com.example.pixz;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javafx.application.Platform;
 import javafx.scene.SnapshotParameters;
@@ -19,298 +24,445 @@ import javafx.scene.media.MediaView;
 /**
  * Utility class for generating thumbnails from images and videos
  * Uses bounded thread pool and semaphore for memory-safe concurrent generation
+ * Requests are queued by priority (lower runs first) and can be re-ranked or
+ * cancelled until a worker picks them up
  */
 public class ThumbnailGenerator {
     private static final int THUMBNAIL_SIZE = 300; // Larger thumbnails for better visibility
-    private static final String FFMPEG_COMMAND = "ffmpeg"; // Assumes FFmpeg is on PATH
 
-    // Bounded thread pool - prevents decode storms
-    private static final ExecutorService thumbnailExecutor = Executors.newFixedThreadPool(8);
+    // Internal follow-up work runs ahead of every thumbnail request
+    private static final double URGENT_PRIORITY = Double.NEGATIVE_INFINITY;
+
+    // Full-quality decodes behind an embedded preview queue after every first pass
+    private static final double UPGRADE_PRIORITY_OFFSET = 1_000_000;
 
-    // Semaphore to limit concurrent thumbnail generation (8 in-flight max for
+    // Bounded thread pool - prevents decode storms
+    // Priority queue: every queued task must be a PrioritizedTask (use execute, never submit)
+    private static final ThreadPoolExecutor thumbnailExecutor = new ThreadPoolExecutor(
+            8, 8, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>());
+
+    // JavaFX MediaPlayer grabs wait for the player, so they get their own threads and
+    // never hold a thumbnail worker (FFmpeg grabs run on FFmpegFrameExtractor's threads)
+    private static final ExecutorService videoExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "video-thumbnails");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // FIFO tie-break between tasks of equal priority
+    private static final AtomicLong submissionSequence = new AtomicLong();
+
+    // Semaphore to limit concurrent image decodes (8 in-flight max for
     // faster refresh)
     private static final Semaphore generationSemaphore = new Semaphore(8);
 
-    // FFmpeg availability check (one-time at class load)
-    private static final boolean FFMPEG_AVAILABLE;
+    // Separate budget for JavaFX MediaPlayer grabs, held until the grab completes
+    private static final Semaphore videoGrabSemaphore = new Semaphore(2);
+    private static final long JAVAFX_GRAB_TIMEOUT_MS = 1500; // Balance between speed and quality
+
     static {
-        boolean available = false;
-        try {
-            Process p = new ProcessBuilder(FFMPEG_COMMAND, "-version")
-                .redirectErrorStream(true).start();
-            available = p.waitFor(3, TimeUnit.SECONDS) && p.exitValue() == 0;
-        } catch (Exception ignored) {}
-        FFMPEG_AVAILABLE = available;
-        if (!FFMPEG_AVAILABLE) {
-            System.out.println("[Pixz] FFmpeg not found — using JavaFX thumbnail fallback.");
+        if (!FFmpegFrameExtractor.isAvailable()) {
+            Log.info("FFmpeg not found, using JavaFX thumbnail fallback");
         }
     }
 
     /**
-     * Generate thumbnail for an image file with caching
-     * Checks cache first, generates only if needed
-     * Uses semaphore to limit concurrent generation
+     * Queue entry ordered by priority, then by submission order
      */
-    public static CompletableFuture<Image> generateImageThumbnail(File file) {
-        // Check cache first
-        Image cached = ThumbnailCache.getCachedThumbnail(file);
-        if (cached != null) {
-            return CompletableFuture.completedFuture(cached);
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        final Runnable body;
+        final double priority;
+        final long sequence;
+
+        PrioritizedTask(Runnable body, double priority, long sequence) {
+            this.body = body;
+            this.priority = priority;
+            this.sequence = sequence;
         }
 
-        // Generate with throttling
-        CompletableFuture<Image> future = new CompletableFuture<>();
+        @Override
+        public void run() {
+            body.run();
+        }
 
-        thumbnailExecutor.submit(() -> {
-            try {
-                generationSemaphore.acquire(); // Throttle concurrent generation
-                try {
-                    // Read orientation
-                    int rotation = MediaMetadataUtils.getRotation(file);
-
-                    if (rotation == 0) {
-                        // Normal loading
-                        Image image = new Image(file.toURI().toString(), THUMBNAIL_SIZE, THUMBNAIL_SIZE, true, false,
-                                false);
-
-                        // Check if image loaded successfully
-                        if (image.isError() || image.getWidth() == 0 || image.getHeight() == 0) {
-                            future.complete(null);
-                        } else {
-                            future.complete(image);
-                        }
-                    } else {
-                        // Load and rotate on FX thread
-                        Platform.runLater(() -> {
-                            try {
-                                Image sourceImage = new Image(file.toURI().toString(), THUMBNAIL_SIZE, THUMBNAIL_SIZE,
-                                        true,
-                                        false, false);
-                                javafx.scene.image.ImageView iv = new javafx.scene.image.ImageView(sourceImage);
-                                iv.setRotate(rotation);
-                                SnapshotParameters params = new SnapshotParameters();
-                                params.setFill(javafx.scene.paint.Color.TRANSPARENT);
-                                WritableImage rotated = iv.snapshot(params, null);
-                                future.complete(rotated);
-                            } catch (Exception e) {
-                                future.complete(null);
-                            }
-                        });
-                    }
-                } finally {
-                    generationSemaphore.release();
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = Double.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Handle for a queued thumbnail request
+     * The future completes with the thumbnail (or null if none could be generated);
+     * it is cancelled if the request is cancelled before a worker starts it
+     *
+     * JPEGs that are not cached yet go through two passes: the embedded EXIF thumbnail
+     * completes preview() right away, then the full decode is re-queued at a lower
+     * priority and completes future() as usual
+     */
+    public static final class ThumbnailRequest {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final MediaItem item;
+        private final CompletableFuture<Image> future = new CompletableFuture<>();
+        private final CompletableFuture<Image> preview = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final long sequence = submissionSequence.getAndIncrement();
+        private PrioritizedTask task; // Guarded by this
+        private volatile boolean upgrading; // Preview delivered, full decode re-queued
+
+        private ThumbnailRequest(MediaItem item) {
+            this.item = item;
+            // Requests without a preview pass complete it with null
+            future.whenComplete((thumbnail, throwable) -> preview.complete(null));
+        }
+
+        public File getFile() {
+            return item.getFile();
+        }
+
+        public CompletableFuture<Image> future() {
+            return future;
+        }
+
+        /**
+         * Completes with a low-resolution preview shown until future() completes,
+         * or with null if there is none
+         */
+        public CompletableFuture<Image> preview() {
+            return preview;
+        }
+
+        public synchronized double getPriority() {
+            return task != null ? task.priority : URGENT_PRIORITY;
+        }
+
+        /**
+         * True once a worker has picked the request up (it can no longer be cancelled)
+         */
+        public boolean isStarted() {
+            return state.get() == RUNNING;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        /**
+         * Cancel the request if no worker has started it yet
+         * Returns false if it is already running or finished
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(QUEUED, CANCELLED)) {
+                return false;
+            }
+            synchronized (this) {
+                if (task != null) {
+                    thumbnailExecutor.remove(task);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                future.complete(null);
-            } catch (Exception e) {
+            }
+            future.cancel(false);
+            return true;
+        }
+
+        /**
+         * Re-rank a queued request (no effect once it has started)
+         */
+        public synchronized void setPriority(double priority) {
+            if (upgrading) {
+                priority += UPGRADE_PRIORITY_OFFSET;
+            }
+            if (state.get() != QUEUED || task == null || task.priority == priority) {
+                return;
+            }
+            // Heap order is fixed at insertion, so re-insert with the new priority
+            if (thumbnailExecutor.remove(task)) {
+                submit(priority);
+            }
+        }
+
+        private synchronized void submit(double priority) {
+            task = new PrioritizedTask(this::run, priority, sequence);
+            try {
+                thumbnailExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Executor shut down
+                state.set(CANCELLED);
                 future.complete(null);
             }
-        });
+        }
 
-        // Cache to disk asynchronously (doesn't block thumbnail display)
-        future.thenAccept(thumbnail -> {
-            if (thumbnail != null) {
-                ThumbnailCache.cacheThumbnail(file, thumbnail);
+        private void run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return;
             }
-        });
+            if (item.getType() == MediaItem.MediaType.VIDEO) {
+                generateVideoThumbnail(item, future);
+            } else if (upgrading || !offerPreview(this)) {
+                generateImageThumbnail(item, future);
+            }
+        }
 
-        return future;
+        /**
+         * Queue the full decode again behind all first passes
+         */
+        private synchronized void requeueForUpgrade() {
+            upgrading = true;
+            double priority = task.priority + UPGRADE_PRIORITY_OFFSET;
+            state.set(QUEUED);
+            submit(priority);
+        }
     }
 
     /**
-     * Generate thumbnail for a video file with caching
-     * Checks cache first, generates only if needed
-     * Uses semaphore to limit concurrent generation
+     * Request a thumbnail for a media item
+     * Memory-cache hits complete immediately; otherwise the request is queued and a
+     * worker checks the disk cache, then generates only if needed
+     *
+     * @param priority Lower values run first (e.g. distance from the viewport)
      */
-    public static CompletableFuture<Image> generateVideoThumbnail(File file) {
-        // Check cache first
-        Image cached = ThumbnailCache.getCachedThumbnail(file);
+    public static ThumbnailRequest requestThumbnail(MediaItem item, double priority) {
+        ThumbnailRequest request = new ThumbnailRequest(item);
+
+        // Check memory cache first (precomputed key, no I/O: safe on the caller's thread)
+        Image cached = ThumbnailCache.getMemoryCachedThumbnail(item);
         if (cached != null) {
-            return CompletableFuture.completedFuture(cached);
+            request.state.set(ThumbnailRequest.RUNNING);
+            request.future.complete(cached);
+            return request;
+        }
+
+        request.submit(priority);
+        return request;
+    }
+
+    public static ThumbnailRequest requestThumbnail(File file, MediaItem.MediaType type, double priority) {
+        return requestThumbnail(new MediaItem(file, type), priority);
+    }
+
+    /**
+     * First pass for JPEGs (runs on a worker): if nothing is cached yet, show the
+     * embedded EXIF thumbnail (APP1 segment only, no full decode) and re-queue the
+     * full-quality thumbnail at a lower priority
+     * Returns false if there is no usable preview; the caller then generates directly
+     */
+    private static boolean offerPreview(ThumbnailRequest request) {
+        MediaItem item = request.item;
+        if (!isJpegFile(item.getFile())) {
+            return false;
+        }
+        Image diskCached = ThumbnailCache.getCachedThumbnail(item);
+        if (diskCached != null) {
+            request.future.complete(diskCached);
+            return true;
+        }
+
+        MediaMetadataUtils.EmbeddedThumbnail embedded = MediaMetadataUtils.readEmbeddedThumbnail(item.getFile());
+        if (embedded == null) {
+            return false;
+        }
+        Image preview;
+        try {
+            preview = new Image(new ByteArrayInputStream(embedded.getData()));
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (preview.isError() || preview.getWidth() == 0 || preview.getHeight() == 0) {
+            return false;
         }
 
-        CompletableFuture<Image> future = new CompletableFuture<>();
+        request.preview.complete(ImageOrientation.apply(preview, embedded.getOrientation()));
+        request.requeueForUpgrade();
+        return true;
+    }
 
-        // Acquire semaphore before starting generation
-        thumbnailExecutor.submit(() -> {
+    /**
+     * Generate thumbnail for an image file with caching (runs on a worker)
+     * Checks disk cache, generates only if needed
+     * Uses semaphore to limit concurrent generation
+     */
+    private static void generateImageThumbnail(MediaItem item, CompletableFuture<Image> future) {
+        File file = item.getFile();
+        try {
+            // Check disk cache on the worker
+            Image diskCached = ThumbnailCache.getCachedThumbnail(item);
+            if (diskCached != null) {
+                future.complete(diskCached);
+                return;
+            }
+
+            generationSemaphore.acquire(); // Throttle concurrent generation
             try {
-                generationSemaphore.acquire(); // Throttle concurrent generation
-
-                // Try FFmpeg first (faster and more reliable), then fallback to JavaFX
-                boolean ffmpegSuccess = FFMPEG_AVAILABLE && tryFFmpegThumbnail(file, future);
-                
-                if (!ffmpegSuccess) {
-                    // Fallback to JavaFX MediaPlayer (bundled with app)
-                    tryJavaFXThumbnail(file, future);
-
-                    // Add timeout fallback to placeholder (1.5 seconds - balance between speed and
-                    // quality)
-                    thumbnailExecutor.submit(() -> {
-                        try {
-                            Thread.sleep(1500);
-                            if (!future.isDone()) {
-                                Image placeholder = createPlaceholderImage();
-                                future.complete(placeholder);
-                                // Don't cache placeholder - will be retried on refresh
-                            }
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        } catch (Exception e) {
-                            if (!future.isDone()) {
-                                future.complete(createPlaceholderImage());
-                            }
-                        }
-                        // Note: Semaphore released in whenComplete callback
-                    });
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                future.complete(createPlaceholderImage());
-            } catch (Exception e) {
-                // Ensure future is completed even on unexpected errors
-                if (!future.isDone()) {
-                    future.complete(createPlaceholderImage());
+                // Read orientation (parsed once per file version, then cached)
+                int orientation = MediaMetadataUtils.getMetadata(item).getOrientation();
+
+                // Decode and orient at thumbnail size on the worker
+                Image image = decodeThumbnail(file);
+                if (image == null) {
+                    future.complete(null);
+                } else {
+                    Image oriented = ImageOrientation.apply(image, orientation);
+                    // Hand off to the write-behind queue (doesn't block thumbnail display)
+                    ThumbnailCache.cacheThumbnail(item, oriented);
+                    future.complete(oriented);
                 }
+            } finally {
+                generationSemaphore.release();
             }
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.complete(null);
+        } catch (Exception e) {
+            future.complete(null);
+        }
+    }
 
-        // Cache result and release semaphore when complete
-        future.whenComplete((thumbnail, throwable) -> {
-            // Release semaphore when done (success or failure)
-            generationSemaphore.release();
+    /**
+     * Decode an image at thumbnail size: subsampled ImageIO decode first, JavaFX's
+     * loader for formats ImageIO cannot read
+     * Returns null if the image cannot be loaded
+     */
+    private static Image decodeThumbnail(File file) {
+        Image image = ImageDecoder.decode(file, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        if (image == null) {
+            image = new Image(file.toURI().toString(), THUMBNAIL_SIZE, THUMBNAIL_SIZE, true, false, false);
+        }
+        if (image.isError() || image.getWidth() == 0 || image.getHeight() == 0) {
+            return null;
+        }
+        return image;
+    }
 
-            // Cache the result
+    /**
+     * Generate thumbnail for a video file with caching (runs on a worker)
+     * Checks disk cache on the worker, then requests the frame from FFmpeg without
+     * waiting for it; the JavaFX fallback runs on the video threads
+     */
+    private static void generateVideoThumbnail(MediaItem item, CompletableFuture<Image> future) {
+        // Check disk cache on the worker
+        Image diskCached = ThumbnailCache.getCachedThumbnail(item);
+        if (diskCached != null) {
+            future.complete(diskCached);
+            return;
+        }
+
+        // Cache the generated result (enqueue only; placeholders and timeouts are not cached)
+        future.thenAccept(thumbnail -> {
             if (thumbnail != null) {
-                ThumbnailCache.cacheThumbnail(file, thumbnail);
+                ThumbnailCache.cacheThumbnail(item, thumbnail);
             }
         });
 
-        return future;
+        // Try FFmpeg first (faster and more reliable), then fallback to JavaFX
+        if (FFmpegFrameExtractor.isAvailable()) {
+            requestFFmpegThumbnail(item, future);
+        } else {
+            grabJavaFXFrameLater(item, future);
+        }
     }
 
     /**
-     * Create a placeholder image for videos that can't generate thumbnails
-     * Returns null to indicate no thumbnail - UI will show text instead
+     * Request the frame from FFmpeg and complete future with it, or queue the JavaFX
+     * fallback if FFmpeg cannot produce one
+     * Does not block: requests queued while FFmpegFrameExtractor's processes are busy
+     * are batched into one ffmpeg invocation
      */
-    private static Image createPlaceholderImage() {
-        // Return null instead of creating a placeholder image
-        // The UI will display "No thumbnail generated" text
-        return null;
+    private static void requestFFmpegThumbnail(MediaItem item, CompletableFuture<Image> future) {
+        FFmpegFrameExtractor.extractFrame(item.getFile(), THUMBNAIL_SIZE).whenComplete((thumbnail, throwable) -> {
+            if (thumbnail != null) {
+                future.complete(thumbnail);
+            } else {
+                grabJavaFXFrameLater(item, future);
+            }
+        });
     }
 
     /**
-     * Try to generate thumbnail using FFmpeg (background thread only)
-     * Must be called from thumbnailExecutor, never from Platform.runLater
-     * 
-     * @param videoFile The video file to generate thumbnail from
-     * @param future The CompletableFuture to complete with the thumbnail
-     * @return true if FFmpeg succeeded, false if it failed (caller should try JavaFX fallback)
+     * Queue a JavaFX MediaPlayer grab on the video threads
      */
-    private static boolean tryFFmpegThumbnail(File videoFile, CompletableFuture<Image> future) {
-        // Generate temp file path using hashCode to avoid path character issues
-        String tempDir = System.getProperty("java.io.tmpdir");
-        String outputPath = tempDir + File.separator + "pixz_thumb_" + 
-            videoFile.getName().hashCode() + ".jpg";
-        File outputFile = new File(outputPath);
-
+    private static void grabJavaFXFrameLater(MediaItem item, CompletableFuture<Image> future) {
         try {
-            // Build FFmpeg command: extract frame at 1 second
-            ProcessBuilder pb = new ProcessBuilder(
-                FFMPEG_COMMAND,
-                "-y",                           // Overwrite output file
-                "-loglevel", "error",           // Only show errors
-                "-i", videoFile.getAbsolutePath(), // Input file
-                "-ss", "00:00:01",              // Seek to 1 second
-                "-vframes", "1",                // Extract 1 frame
-                outputPath                      // Output file
-            );
-            pb.redirectErrorStream(true);
-            pb.redirectError(ProcessBuilder.Redirect.DISCARD);
-
-            // Start process
-            Process process = pb.start();
-
-            // Wait with timeout (8 seconds)
-            boolean completed = process.waitFor(8, TimeUnit.SECONDS);
-            
-            if (!completed) {
-                // Timeout - kill process
-                process.destroyForcibly();
-                outputFile.delete();
-                return false;
-            }
+            videoExecutor.execute(() -> grabJavaFXFrame(item, future));
+        } catch (RejectedExecutionException e) {
+            future.complete(null); // Shut down
+        }
+    }
 
-            // Check exit code and output file
-            if (process.exitValue() == 0 && outputFile.exists() && outputFile.length() > 0) {
-                // Load image from temp file (Image constructor is thread-safe)
-                Image thumbnail = new Image(outputFile.toURI().toString());
-                
-                // Delete temp file
-                outputFile.delete();
-                
-                // Check if image loaded successfully
-                if (!thumbnail.isError() && thumbnail.getWidth() > 0 && thumbnail.getHeight() > 0) {
-                    // Complete future directly from background thread
-                    future.complete(thumbnail);
-                    return true;
-                } else {
-                    return false;
-                }
-            } else {
-                // FFmpeg failed
-                outputFile.delete();
-                return false;
-            }
+    /**
+     * Grab a frame with a JavaFX MediaPlayer (video threads only)
+     * Waits for a videoGrabSemaphore permit, which is held until the grab completes
+     */
+    private static void grabJavaFXFrame(MediaItem item, CompletableFuture<Image> future) {
+        try {
+            videoGrabSemaphore.acquire();
+            // Released exactly once, however the future completes
+            future.whenComplete((thumbnail, throwable) -> videoGrabSemaphore.release());
 
-        } catch (IOException e) {
-            // FFmpeg not found or can't start - this shouldn't happen due to FFMPEG_AVAILABLE check
-            // but handle gracefully
-            outputFile.delete();
-            return false;
+            // Placeholder if the player has not delivered a frame in time
+            future.completeOnTimeout(createPlaceholderImage(), JAVAFX_GRAB_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            tryJavaFXThumbnail(item, future);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            outputFile.delete();
-            return false;
+            future.complete(createPlaceholderImage());
         } catch (Exception e) {
-            // Any other exception - fallback to JavaFX
-            outputFile.delete();
-            return false;
+            // Ensure future is completed even on unexpected errors
+            future.complete(createPlaceholderImage());
         }
     }
 
+    /**
+     * Create a placeholder image for videos that can't generate thumbnails
+     * Returns null to indicate no thumbnail - UI will show text instead
+     */
+    private static Image createPlaceholderImage() {
+        // Return null instead of creating a placeholder image
+        // The UI will display "No thumbnail generated" text
+        return null;
+    }
+
     /**
      * Try to generate thumbnail using JavaFX MediaPlayer
+     * The caller bounds the attempt with a timeout on future; the player is disposed
+     * once when future completes, whichever path completes it
      */
-    private static void tryJavaFXThumbnail(File file, CompletableFuture<Image> future) {
+    private static void tryJavaFXThumbnail(MediaItem item, CompletableFuture<Image> future) {
+        File file = item.getFile();
+        int rotation = MediaMetadataUtils.getMetadata(item).getRotation(); // Off the FX thread
         Platform.runLater(() -> {
-            MediaPlayer mediaPlayer = null;
+            if (future.isDone()) {
+                return; // Timed out before the FX thread got to it
+            }
             try {
-
                 Media media = new Media(file.toURI().toString());
-                mediaPlayer = new MediaPlayer(media);
-                MediaPlayer finalMediaPlayer = mediaPlayer;
-
-                // Flag to track if snapshot was taken
-                final boolean[] snapshotTaken = { false };
-                final MediaView[] mediaViewHolder = { null };
+                MediaPlayer mediaPlayer = new MediaPlayer(media);
+                future.whenComplete((thumbnail, throwable) -> Platform.runLater(() -> {
+                    mediaPlayer.stop();
+                    mediaPlayer.dispose();
+                }));
 
                 mediaPlayer.setOnReady(() -> {
+                    if (future.isDone()) {
+                        return;
+                    }
                     try {
                         // Create MediaView only when ready
-                        MediaView mediaView = new MediaView(finalMediaPlayer);
+                        MediaView mediaView = new MediaView(mediaPlayer);
                         mediaView.setFitWidth(THUMBNAIL_SIZE);
                         mediaView.setFitHeight(THUMBNAIL_SIZE);
                         mediaView.setPreserveRatio(true); // Don't squeeze, will be cropped in display
 
                         // Apply rotation if needed
-                        int rotation = MediaMetadataUtils.getRotation(file);
                         mediaView.setRotate(rotation);
 
-                        mediaViewHolder[0] = mediaView;
-
                         // Seek to 1 second or 10% of duration to avoid black intro frames
-                        javafx.util.Duration duration = finalMediaPlayer.getTotalDuration();
+                        javafx.util.Duration duration = mediaPlayer.getTotalDuration();
                         javafx.util.Duration seekTime;
                         if (duration != null && duration.toSeconds() > 2) {
                             // Seek to 10% of video or 1 second, whichever is less
@@ -321,77 +473,34 @@ public class ThumbnailGenerator {
                             seekTime = javafx.util.Duration.seconds(0.5);
                         }
 
-                        finalMediaPlayer.seek(seekTime);
-
-                        // Wait a bit after seeking for frame to load, then take snapshot
-                        Platform.runLater(() -> {
-                            // Add small delay to ensure frame is rendered after seek
-                            javafx.animation.PauseTransition delay = new javafx.animation.PauseTransition(
-                                    javafx.util.Duration.millis(200));
-                            delay.setOnFinished(e -> {
-                                try {
-                                    if (!snapshotTaken[0] && mediaViewHolder[0] != null) {
-                                        snapshotTaken[0] = true;
-                                        SnapshotParameters params = new SnapshotParameters();
-                                        params.setFill(javafx.scene.paint.Color.BLACK);
-                                        WritableImage snapshot = mediaViewHolder[0].snapshot(params, null);
-
-                                        if (snapshot != null && snapshot.getWidth() > 0 && snapshot.getHeight() > 0) {
-                                            future.complete(snapshot);
-                                            finalMediaPlayer.stop();
-                                            finalMediaPlayer.dispose();
-                                        } else {
-                                            future.complete(createPlaceholderImage());
-                                            finalMediaPlayer.stop();
-                                            finalMediaPlayer.dispose();
-                                        }
-                                    }
-                                } catch (Exception ex) {
-                                    future.complete(createPlaceholderImage());
-                                    finalMediaPlayer.stop();
-                                    finalMediaPlayer.dispose();
-                                }
-                            });
-                            delay.play();
+                        mediaPlayer.seek(seekTime);
+
+                        // Add small delay to ensure frame is rendered after seek
+                        javafx.animation.PauseTransition delay = new javafx.animation.PauseTransition(
+                                javafx.util.Duration.millis(200));
+                        delay.setOnFinished(e -> {
+                            if (future.isDone()) {
+                                return;
+                            }
+                            try {
+                                SnapshotParameters params = new SnapshotParameters();
+                                params.setFill(javafx.scene.paint.Color.BLACK);
+                                WritableImage snapshot = mediaView.snapshot(params, null);
+                                boolean valid = snapshot != null && snapshot.getWidth() > 0 && snapshot.getHeight() > 0;
+                                future.complete(valid ? snapshot : createPlaceholderImage());
+                            } catch (Exception ex) {
+                                future.complete(createPlaceholderImage());
+                            }
                         });
+                        delay.play();
                     } catch (Exception e) {
-                        finalMediaPlayer.stop();
-                        finalMediaPlayer.dispose();
-                        if (!future.isDone()) {
-                            future.complete(createPlaceholderImage());
-                        }
-                    }
-                });
-
-                mediaPlayer.setOnError(() -> {
-                    finalMediaPlayer.stop();
-                    finalMediaPlayer.dispose();
-                    if (!future.isDone()) {
-                        future.complete(createPlaceholderImage());
-                    }
-                });
-
-                // Timeout fallback (4 seconds for JavaFX attempt)
-                MediaPlayer timeoutPlayer = mediaPlayer;
-                javafx.animation.PauseTransition timeout = new javafx.animation.PauseTransition(
-                        javafx.util.Duration.seconds(4));
-                timeout.setOnFinished(e -> {
-                    if (!future.isDone()) {
-                        timeoutPlayer.stop();
-                        timeoutPlayer.dispose();
                         future.complete(createPlaceholderImage());
                     }
                 });
-                timeout.play();
 
+                mediaPlayer.setOnError(() -> future.complete(createPlaceholderImage()));
             } catch (Exception e) {
-                if (mediaPlayer != null) {
-                    mediaPlayer.stop();
-                    mediaPlayer.dispose();
-                }
-                if (!future.isDone()) {
-                    future.complete(createPlaceholderImage());
-                }
+                future.complete(createPlaceholderImage());
             }
         });
     }
@@ -406,6 +515,14 @@ public class ThumbnailGenerator {
                 name.endsWith(".bmp");
     }
 
+    /**
+     * Check if file is a JPEG (the only format with embedded EXIF previews)
+     */
+    private static boolean isJpegFile(File file) {
+        String name = file.getName().toLowerCase();
+        return name.endsWith(".jpg") || name.endsWith(".jpeg");
+    }
+
     /**
      * Check if file is a supported video format
      */
@@ -421,6 +538,7 @@ public class ThumbnailGenerator {
      * Forces immediate shutdown of all thumbnail generation threads
      */
     public static void shutdown() {
+        videoExecutor.shutdownNow(); // Pending frame grabs are abandoned
 
         try {
             // Try graceful shutdown first
@@ -434,12 +552,12 @@ public class ThumbnailGenerator {
 
                 // Wait a bit more for forced shutdown
                 if (!thumbnailExecutor.awaitTermination(1, java.util.concurrent.TimeUnit.SECONDS)) {
-                    System.err.println("Thumbnail executor did not terminate");
+                    Log.warn("Thumbnail executor did not terminate");
                 }
             }
 
         } catch (InterruptedException e) {
-            System.err.println("Shutdown interrupted, forcing...");
+            Log.warn("Shutdown interrupted, forcing...");
             thumbnailExecutor.shutdownNow();
             Thread.currentThread().interrupt();
         }
@@ -0,0 +1,460 @@
+package com.example.pixz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only pack file for encoded thumbnails
+ *
+ * Layout:
+ * - thumbnails.pack: raw encoded image bytes, appended back to back
+ * - thumbnails.idx: header followed by PUT/DELETE records (last record per key wins)
+ *
+ * Reads go through memory-mapped segments of the pack file, so a hit is a
+ * map lookup plus a zero-copy ByteBuffer slice. Entries never straddle a
+ * segment boundary. Dead bytes (overwritten or deleted entries) are reclaimed
+ * by compaction, which runs when the store is opened before anything is mapped.
+ */
+public class ThumbnailPackStore {
+    private static final String DATA_FILE_NAME = "thumbnails.pack";
+    private static final String INDEX_FILE_NAME = "thumbnails.idx";
+
+    private static final int INDEX_MAGIC = 0x50585A49; // "PXZI"
+    // Version 2: XXH64-based keys (see ThumbnailCache.getCacheKey); older packs are discarded
+    private static final int INDEX_VERSION = 2;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    // Each mapped segment covers 1 GB of the pack file
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    // Compact on open when at least this share of the pack is dead
+    private static final double COMPACTION_THRESHOLD = 0.3;
+    private static final long COMPACTION_MIN_DEAD_BYTES = 8L * 1024 * 1024;
+
+    /**
+     * Location and dimensions of one stored thumbnail
+     */
+    public static final class Entry {
+        final long offset;
+        final int length;
+        final int width;
+        final int height;
+        final long timestamp;
+
+        Entry(long offset, int length, int width, int height, long timestamp) {
+            this.offset = offset;
+            this.length = length;
+            this.width = width;
+            this.height = height;
+            this.timestamp = timestamp;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    private final Path directory;
+    private final Path dataPath;
+    private final Path indexPath;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private FileChannel dataChannel;
+    private DataOutputStream indexOut;
+    private long dataSize;
+    private long deadBytes;
+
+    public ThumbnailPackStore(Path directory) {
+        this.directory = directory;
+        this.dataPath = directory.resolve(DATA_FILE_NAME);
+        this.indexPath = directory.resolve(INDEX_FILE_NAME);
+    }
+
+    /**
+     * Load the index and open the pack for appending
+     * Compacts first if enough of the pack is dead
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+
+        long existingDataSize = Files.exists(dataPath) ? Files.size(dataPath) : 0;
+        loadIndex(existingDataSize);
+
+        if (deadBytes >= COMPACTION_MIN_DEAD_BYTES && deadBytes >= existingDataSize * COMPACTION_THRESHOLD) {
+            compactFiles();
+        }
+
+        dataChannel = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        dataSize = dataChannel.size();
+
+        boolean writeHeader = !Files.exists(indexPath) || Files.size(indexPath) == 0;
+        indexOut = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indexPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (writeHeader) {
+            indexOut.writeInt(INDEX_MAGIC);
+            indexOut.writeInt(INDEX_VERSION);
+            indexOut.flush();
+        }
+    }
+
+    /**
+     * Replay the index log into the in-memory map
+     * A truncated trailing record (crash mid-write) is ignored
+     */
+    private void loadIndex(long existingDataSize) {
+        entries.clear();
+        deadBytes = 0;
+        long liveBytes = 0;
+
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+
+        boolean unknownFormat = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                unknownFormat = true;
+                return; // Files are reset in finally, once the index is closed
+            }
+
+            while (true) {
+                byte op = in.readByte();
+                String key = in.readUTF();
+                if (op == OP_PUT) {
+                    Entry entry = new Entry(in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readLong());
+                    if (entry.offset + entry.length > existingDataSize) {
+                        continue; // Data never made it to disk
+                    }
+                    Entry previous = entries.put(key, entry);
+                    if (previous != null) {
+                        liveBytes -= previous.length;
+                    }
+                    liveBytes += entry.length;
+                } else if (op == OP_DELETE) {
+                    Entry previous = entries.remove(key);
+                    if (previous != null) {
+                        liveBytes -= previous.length;
+                    }
+                } else {
+                    break; // Corrupt record, keep what we have
+                }
+            }
+        } catch (EOFException e) {
+            // End of log
+        } catch (IOException e) {
+            Log.warn("Failed to read thumbnail index: " + e.getMessage());
+        } finally {
+            if (unknownFormat) {
+                // Old key scheme or foreign file: start over
+                resetFiles();
+            }
+        }
+
+        deadBytes = Math.max(0, existingDataSize - liveBytes);
+    }
+
+    private void resetFiles() {
+        entries.clear();
+        deadBytes = 0;
+        try {
+            Files.deleteIfExists(indexPath);
+            Files.deleteIfExists(dataPath);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Rewrite the pack with only live entries and a fresh index
+     * Must run before the pack is mapped (mapped files cannot be replaced on Windows)
+     */
+    private void compactFiles() throws IOException {
+        Path tmpData = directory.resolve(DATA_FILE_NAME + ".tmp");
+        Path tmpIndex = directory.resolve(INDEX_FILE_NAME + ".tmp");
+
+        Map<String, Entry> compacted = new LinkedHashMap<>();
+        try (FileChannel src = FileChannel.open(dataPath, StandardOpenOption.READ);
+                FileChannel dst = FileChannel.open(tmpData, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                DataOutputStream idx = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(tmpIndex)))) {
+            idx.writeInt(INDEX_MAGIC);
+            idx.writeInt(INDEX_VERSION);
+
+            long position = 0;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry old = e.getValue();
+                position = alignForSegment(position, old.length);
+
+                long copied = 0;
+                while (copied < old.length) {
+                    copied += src.transferTo(old.offset + copied, old.length - copied, dst.position(position + copied));
+                }
+
+                Entry moved = new Entry(position, old.length, old.width, old.height, old.timestamp);
+                compacted.put(e.getKey(), moved);
+                writePutRecord(idx, e.getKey(), moved);
+                position += old.length;
+            }
+        }
+
+        Files.move(tmpData, dataPath, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmpIndex, indexPath, StandardCopyOption.REPLACE_EXISTING);
+
+        entries.clear();
+        entries.putAll(compacted);
+        deadBytes = 0;
+    }
+
+    /**
+     * Move an append position to the next segment if the entry would straddle a boundary
+     */
+    private static long alignForSegment(long position, int length) {
+        long segmentEnd = (position / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+        return position + length > segmentEnd ? segmentEnd : position;
+    }
+
+    private static void writePutRecord(DataOutputStream out, String key, Entry entry) throws IOException {
+        out.writeByte(OP_PUT);
+        out.writeUTF(key);
+        out.writeLong(entry.offset);
+        out.writeInt(entry.length);
+        out.writeInt(entry.width);
+        out.writeInt(entry.height);
+        out.writeLong(entry.timestamp);
+    }
+
+    /**
+     * Append encoded bytes for a key, replacing any previous entry
+     * Index records are buffered until flush()
+     */
+    public synchronized void put(String key, byte[] data, int width, int height) throws IOException {
+        if (dataChannel == null || data == null || data.length == 0) {
+            return;
+        }
+
+        long offset = alignForSegment(dataSize, data.length);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += dataChannel.write(buffer, position);
+        }
+        dataSize = offset + data.length;
+
+        Entry entry = new Entry(offset, data.length, width, height, System.currentTimeMillis());
+        writePutRecord(indexOut, key, entry);
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            deadBytes += previous.length;
+        }
+    }
+
+    /**
+     * Zero-copy view of the stored bytes for a key, or null if absent
+     */
+    public synchronized ByteBuffer read(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            int segmentIndex = (int) (entry.offset / SEGMENT_SIZE);
+            int segmentOffset = (int) (entry.offset % SEGMENT_SIZE);
+            MappedByteBuffer segment = mapSegment(segmentIndex, segmentOffset + entry.length);
+
+            ByteBuffer slice = segment.duplicate();
+            slice.position(segmentOffset);
+            slice.limit(segmentOffset + entry.length);
+            return slice.slice();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Map (or remap after growth) the segment so it covers at least requiredLength bytes
+     */
+    private MappedByteBuffer mapSegment(int segmentIndex, long requiredLength) throws IOException {
+        while (segments.size() <= segmentIndex) {
+            segments.add(null);
+        }
+
+        MappedByteBuffer segment = segments.get(segmentIndex);
+        if (segment == null || segment.capacity() < requiredLength) {
+            long start = segmentIndex * SEGMENT_SIZE;
+            long length = Math.min(SEGMENT_SIZE, dataSize - start);
+            segment = dataChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            segments.set(segmentIndex, segment);
+        }
+        return segment;
+    }
+
+    public synchronized Entry getEntry(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Remove a key (tombstone record, bytes reclaimed on next compaction)
+     * Index records are buffered until flush()
+     */
+    public synchronized void remove(String key) {
+        Entry previous = entries.remove(key);
+        if (previous == null || indexOut == null) {
+            return;
+        }
+        deadBytes += previous.length;
+        try {
+            indexOut.writeByte(OP_DELETE);
+            indexOut.writeUTF(key);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Flush buffered index records to disk
+     */
+    public synchronized void flush() {
+        try {
+            if (indexOut != null) {
+                indexOut.flush();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Remove every entry written before the cutoff time
+     */
+    public synchronized int removeOlderThan(long cutoffMillis) {
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().timestamp < cutoffMillis) {
+                expired.add(e.getKey());
+            }
+        }
+        for (String key : expired) {
+            remove(key);
+        }
+        flush();
+        return expired.size();
+    }
+
+    /**
+     * Delete a legacy one-file-per-thumbnail cache directory's *.jpg files
+     * Their names are MD5-based keys, which the current key scheme never produces
+     *
+     * @return Number of files deleted
+     */
+    public static int deleteLegacyFiles(Path legacyDir) {
+        int deleted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(legacyDir, "*.jpg")) {
+            for (Path file : stream) {
+                try {
+                    if (Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    // Skip, retried on next start
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Failed to remove legacy thumbnails: " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getDataSize() {
+        return dataSize;
+    }
+
+    public synchronized long getDeadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Flush and close the pack (mappings are released by GC)
+     */
+    public synchronized void close() {
+        try {
+            if (indexOut != null) {
+                indexOut.close();
+            }
+        } catch (IOException ignored) {
+        }
+        try {
+            if (dataChannel != null) {
+                dataChannel.close();
+            }
+        } catch (IOException ignored) {
+        }
+        indexOut = null;
+        dataChannel = null;
+        segments.clear();
+    }
+
+    /**
+     * InputStream over a ByteBuffer slice (no copy of the backing bytes)
+     */
+    public static InputStream asInputStream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        };
+    }
+}
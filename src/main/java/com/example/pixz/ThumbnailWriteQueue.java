@@ -0,0 +1,327 @@
+package com.example.pixz;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+/**
+ * Bounded write-behind queue for thumbnail persistence
+ * A dedicated worker thread drains pending writes in batches so JPEG encoding
+ * and pack I/O never run on the thread that produced the thumbnail
+ *
+ * - Requests are coalesced per file: a newer write or removal replaces an older one
+ * - Writes for files deleted in the meantime are dropped
+ * - The DiscardListener hears about every request that is dropped unwritten (a
+ *   coalesced request is not dropped: the request that replaced it stands for it)
+ * - Producers block when the queue is full (backpressure on generation threads),
+ *   except the FX Application Thread, which drops the oldest pending write instead
+ */
+public class ThumbnailWriteQueue {
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int BATCH_SIZE = 32;
+
+    /**
+     * One pending operation: write a thumbnail, or remove it if image is null
+     * cacheKey is the entry to write or remove; when null the writer derives the
+     * key from the file. A pinned removal targets one specific entry (e.g. the key
+     * of a file's previous version) and does not coalesce with the file's writes
+     */
+    public static final class Request {
+        final File file;
+        final Image image;
+        final String cacheKey;
+        final boolean pinned;
+
+        Request(File file, Image image, String cacheKey, boolean pinned) {
+            this.file = file;
+            this.image = image;
+            this.cacheKey = cacheKey;
+            this.pinned = pinned;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public Image getImage() {
+            return image;
+        }
+
+        public String getCacheKey() {
+            return cacheKey;
+        }
+
+        public boolean isRemoval() {
+            return image == null;
+        }
+
+        public boolean isPinned() {
+            return pinned;
+        }
+    }
+
+    /**
+     * Persists a batch of requests (runs on the worker thread)
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<Request> batch);
+    }
+
+    /**
+     * Told about a request that will never reach the BatchWriter (runs on the
+     * dropping thread, possibly holding the queue's lock: must not call back into it)
+     */
+    @FunctionalInterface
+    public interface DiscardListener {
+        void discarded(Request request);
+    }
+
+    private final BatchWriter batchWriter;
+    private final DiscardListener discardListener;
+    private final int capacity;
+    private final Object lock = new Object();
+
+    // Keyed by absolute path (or pinned cache key) so duplicate requests coalesce
+    private final LinkedHashMap<String, Request> pending = new LinkedHashMap<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private boolean writing = false;
+
+    // Statistics
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ThumbnailWriteQueue(BatchWriter batchWriter) {
+        this(batchWriter, request -> {
+        }, DEFAULT_CAPACITY);
+    }
+
+    public ThumbnailWriteQueue(BatchWriter batchWriter, int capacity) {
+        this(batchWriter, request -> {
+        }, capacity);
+    }
+
+    public ThumbnailWriteQueue(BatchWriter batchWriter, DiscardListener discardListener) {
+        this(batchWriter, discardListener, DEFAULT_CAPACITY);
+    }
+
+    public ThumbnailWriteQueue(BatchWriter batchWriter, DiscardListener discardListener, int capacity) {
+        this.batchWriter = batchWriter;
+        this.discardListener = discardListener;
+        this.capacity = Math.max(1, capacity);
+        this.worker = new Thread(this::runWorker, "thumbnail-writer");
+        this.worker.setDaemon(true);
+        this.worker.setPriority(Thread.NORM_PRIORITY - 1);
+        this.worker.start();
+    }
+
+    /**
+     * Queue a thumbnail to be written to disk
+     */
+    public void enqueueWrite(File file, Image image) {
+        enqueueWrite(file, image, null);
+    }
+
+    /**
+     * Queue a thumbnail to be written under a precomputed cache key
+     */
+    public void enqueueWrite(File file, Image image, String cacheKey) {
+        if (file != null && image != null) {
+            enqueue(new Request(file, image, cacheKey, false));
+        }
+    }
+
+    /**
+     * Queue removal of a file's thumbnail (cancels any pending write for it)
+     */
+    public void enqueueRemoval(File file) {
+        if (file != null) {
+            enqueue(new Request(file, null, null, false));
+        }
+    }
+
+    /**
+     * Queue removal of one specific cache entry (does not coalesce with writes for the file)
+     */
+    public void enqueueRemoval(File file, String cacheKey) {
+        if (file != null && cacheKey != null) {
+            enqueue(new Request(file, null, cacheKey, true));
+        }
+    }
+
+    private void enqueue(Request request) {
+        // Pinned-key removals are keyed by cache key (hex), everything else by path
+        String key = request.pinned ? request.cacheKey : request.file.getAbsolutePath();
+        synchronized (lock) {
+            if (!running) {
+                discardListener.discarded(request);
+                return;
+            }
+
+            // Coalesce: replace the pending request for the same file in place
+            if (pending.remove(key) != null) {
+                coalesced.incrementAndGet();
+                pending.put(key, request);
+                lock.notifyAll();
+                return;
+            }
+
+            boolean onFxThread = Platform.isFxApplicationThread();
+            while (pending.size() >= capacity && running) {
+                if (onFxThread) {
+                    // Never block the UI: drop the oldest pending write
+                    if (!dropOldestWrite()) {
+                        break;
+                    }
+                } else {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        discardListener.discarded(request);
+                        return;
+                    }
+                }
+            }
+
+            pending.put(key, request);
+            lock.notifyAll();
+        }
+    }
+
+    private boolean dropOldestWrite() {
+        Iterator<Request> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Request request = it.next();
+            if (!request.isRemoval()) {
+                it.remove();
+                dropped.incrementAndGet();
+                discardListener.discarded(request);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runWorker() {
+        while (true) {
+            List<Request> batch = new ArrayList<>(BATCH_SIZE);
+            synchronized (lock) {
+                while (pending.isEmpty() && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Re-check running flag
+                    }
+                }
+                if (pending.isEmpty() && !running) {
+                    return;
+                }
+
+                Iterator<Map.Entry<String, Request>> it = pending.entrySet().iterator();
+                while (it.hasNext() && batch.size() < BATCH_SIZE) {
+                    batch.add(it.next().getValue());
+                    it.remove();
+                }
+                writing = true;
+                lock.notifyAll(); // Wake producers waiting for space
+            }
+
+            try {
+                // Drop writes for files that were deleted while queued
+                batch.removeIf(r -> {
+                    if (!r.isRemoval() && !r.file.exists()) {
+                        dropped.incrementAndGet();
+                        discardListener.discarded(r);
+                        return true;
+                    }
+                    return false;
+                });
+                if (!batch.isEmpty()) {
+                    batchWriter.write(batch);
+                    written.addAndGet(batch.size());
+                }
+            } catch (Exception e) {
+                Log.warn("Thumbnail write batch failed: " + e.getMessage());
+            } finally {
+                synchronized (lock) {
+                    writing = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of requests waiting to be written
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Block until everything queued so far has been written (or timeout)
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (!pending.isEmpty() || writing) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stop accepting requests, flush what is pending (bounded wait) and stop the worker
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        awaitIdle(timeout, unit);
+        synchronized (lock) {
+            running = false;
+            for (Request request : pending.values()) {
+                discardListener.discarded(request);
+            }
+            pending.clear();
+            lock.notifyAll();
+        }
+        try {
+            worker.join(unit.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
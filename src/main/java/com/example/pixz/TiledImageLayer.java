@@ -0,0 +1,228 @@
+package com.example.pixz;
+
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+
+/**
+ * Deep-zoom overlay for the fullscreen viewer
+ * Lies on top of the screen-size ImageView with the same size and transforms and,
+ * once zooming needs more detail than that image has, covers the visible part with
+ * tiles of an image pyramid: level n is the image subsampled by 2^n, cut into
+ * TILE_SIZE tiles that are decoded one by one with ImageDecoder.decodeRegion. Only
+ * visible tiles are decoded, pending ones are cancelled when they leave the view,
+ * and decoded tiles are kept in a byte-budgeted LRU shared by all images
+ *
+ * All methods must be called on the FX thread
+ */
+public class TiledImageLayer {
+    private static final int TILE_SIZE = 512;
+
+    // Memory budget for decoded tiles, override with -Dpixz.tileCacheMB=<n>
+    private static final long DEFAULT_TILE_CACHE_MB = 96;
+
+    private static final ImageMemoryCache<String> tileCache = new ImageMemoryCache<>(
+            Long.getLong("pixz.tileCacheMB", DEFAULT_TILE_CACHE_MB) * 1024L * 1024L, false);
+
+    private static final ExecutorService tileExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "viewer-tiles");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MediaItem item;
+    private final ImageView base;
+    private final StackPane container;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final Pane layer = new Pane();
+
+    private final Map<String, ImageView> shownTiles = new HashMap<>();
+    private final Map<String, CompletableFuture<Image>> pendingTiles = new HashMap<>();
+    private double layoutWidth; // Display width the shown tiles were placed for
+    private boolean failed;
+    private boolean disposed;
+
+    /**
+     * Overlay for base, the ImageView showing item in container
+     */
+    public TiledImageLayer(MediaItem item, ImageView base, StackPane container) {
+        this.item = item;
+        this.base = base;
+        this.container = container;
+        MediaMetadata metadata = MediaMetadataUtils.getMetadata(item);
+        this.sourceWidth = metadata.getWidth();
+        this.sourceHeight = metadata.getHeight();
+
+        // Same layout box and transforms as the image view, so tiles line up with it
+        layer.setMouseTransparent(true);
+        layer.minWidthProperty().bind(base.fitWidthProperty());
+        layer.prefWidthProperty().bind(base.fitWidthProperty());
+        layer.maxWidthProperty().bind(base.fitWidthProperty());
+        layer.minHeightProperty().bind(base.fitHeightProperty());
+        layer.prefHeightProperty().bind(base.fitHeightProperty());
+        layer.maxHeightProperty().bind(base.fitHeightProperty());
+        layer.scaleXProperty().bind(base.scaleXProperty());
+        layer.scaleYProperty().bind(base.scaleYProperty());
+        layer.translateXProperty().bind(base.translateXProperty());
+        layer.translateYProperty().bind(base.translateYProperty());
+        layer.rotateProperty().bind(base.rotateProperty());
+    }
+
+    public Node getNode() {
+        return layer;
+    }
+
+    /**
+     * Show the tiles the current zoom and pan need, loading missing ones
+     * Returns false if this image cannot be tiled (size unknown or not readable
+     * region by region); the caller then has to provide detail some other way
+     */
+    public boolean update() {
+        if (failed || disposed || sourceWidth <= 0 || sourceHeight <= 0) {
+            return false;
+        }
+        double displayWidth = base.getFitWidth();
+        double displayHeight = base.getFitHeight();
+        Image shown = base.getImage();
+        if (displayWidth <= 0 || displayHeight <= 0 || shown == null || layer.getScene() == null) {
+            return true;
+        }
+
+        // Pyramid level whose pixels are about as fine as the screen's
+        double outputScale = layer.getScene().getWindow() != null ? layer.getScene().getWindow().getOutputScaleX() : 1.0;
+        double sourcePerPixel = sourceWidth / (displayWidth * base.getScaleX() * outputScale);
+        int level = 0;
+        while ((1 << (level + 1)) <= sourcePerPixel) {
+            level++;
+        }
+        if (shown.getWidth() * (1 << level) >= sourceWidth - 1) {
+            // The whole-image decode is already sharp enough
+            cancelPending();
+            clear();
+            return true;
+        }
+
+        if (displayWidth != layoutWidth) {
+            clear(); // Resized or rotated: tiles have to be placed again
+            layoutWidth = displayWidth;
+        }
+
+        Bounds visible = layer.sceneToLocal(container.localToScene(container.getLayoutBounds()));
+        if (visible == null) {
+            return true;
+        }
+        double toSourceX = sourceWidth / displayWidth;
+        double toSourceY = sourceHeight / displayHeight;
+        int span = TILE_SIZE << level; // Source pixels per tile side
+        int firstColumn = Math.max(0, (int) Math.floor(visible.getMinX() * toSourceX / span));
+        int lastColumn = Math.min((sourceWidth - 1) / span, (int) Math.floor(visible.getMaxX() * toSourceX / span));
+        int firstRow = Math.max(0, (int) Math.floor(visible.getMinY() * toSourceY / span));
+        int lastRow = Math.min((sourceHeight - 1) / span, (int) Math.floor(visible.getMaxY() * toSourceY / span));
+
+        Set<String> wanted = new HashSet<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                String key = item.getThumbnailKey() + "/" + level + "/" + column + "/" + row;
+                wanted.add(key);
+                if (shownTiles.containsKey(key)) {
+                    continue;
+                }
+                Rectangle region = new Rectangle(column * span, row * span,
+                        Math.min(span, sourceWidth - column * span), Math.min(span, sourceHeight - row * span));
+                Image tile = tileCache.get(key);
+                if (tile != null) {
+                    showTile(key, tile, region, toSourceX, toSourceY);
+                } else if (!pendingTiles.containsKey(key)) {
+                    loadTile(key, region, level);
+                }
+            }
+        }
+
+        // Drop tiles that left the view (or belong to another level)
+        Iterator<Map.Entry<String, ImageView>> shownIterator = shownTiles.entrySet().iterator();
+        while (shownIterator.hasNext()) {
+            Map.Entry<String, ImageView> entry = shownIterator.next();
+            if (!wanted.contains(entry.getKey())) {
+                layer.getChildren().remove(entry.getValue());
+                shownIterator.remove();
+            }
+        }
+        Iterator<Map.Entry<String, CompletableFuture<Image>>> pendingIterator = pendingTiles.entrySet().iterator();
+        while (pendingIterator.hasNext()) {
+            Map.Entry<String, CompletableFuture<Image>> entry = pendingIterator.next();
+            if (!wanted.contains(entry.getKey())) {
+                entry.getValue().cancel(false); // Skipped by the executor if not started
+                pendingIterator.remove();
+            }
+        }
+        return true;
+    }
+
+    private void showTile(String key, Image tile, Rectangle region, double toSourceX, double toSourceY) {
+        ImageView view = new ImageView(tile);
+        view.setSmooth(true);
+        view.setLayoutX(region.x / toSourceX);
+        view.setLayoutY(region.y / toSourceY);
+        view.setFitWidth(region.width / toSourceX);
+        view.setFitHeight(region.height / toSourceY);
+        layer.getChildren().add(view);
+        shownTiles.put(key, view);
+    }
+
+    private void loadTile(String key, Rectangle region, int level) {
+        int targetWidth = Math.max(1, (int) Math.ceil((double) region.width / (1 << level)));
+        int targetHeight = Math.max(1, (int) Math.ceil((double) region.height / (1 << level)));
+        CompletableFuture<Image> future = CompletableFuture.supplyAsync(
+                () -> ImageDecoder.decodeRegion(item.getFile(), region, targetWidth, targetHeight), tileExecutor);
+        pendingTiles.put(key, future);
+        future.thenAccept(tile -> Platform.runLater(() -> {
+            if (!pendingTiles.remove(key, future) || disposed) {
+                return;
+            }
+            if (tile == null) {
+                Log.warn("Cannot decode tiles of " + item.getFile().getName() + ", tiling disabled");
+                failed = true;
+                dispose();
+                return;
+            }
+            tileCache.put(key, tile);
+            update(); // Shows it (from the cache) if it is still wanted
+        }));
+    }
+
+    private void cancelPending() {
+        for (CompletableFuture<Image> future : pendingTiles.values()) {
+            future.cancel(false);
+        }
+        pendingTiles.clear();
+    }
+
+    private void clear() {
+        layer.getChildren().clear();
+        shownTiles.clear();
+    }
+
+    /**
+     * Remove all tiles and cancel pending decodes; the layer stays inert afterwards
+     */
+    public void dispose() {
+        disposed = true;
+        cancelPending();
+        clear();
+    }
+}
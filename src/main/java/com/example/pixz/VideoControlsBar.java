@@ -563,12 +563,14 @@ public class VideoControlsBar {
         mediaView.setFitWidth(displayW);
         mediaView.setFitHeight(displayH);
         
-        System.out.println("[updateVideoFit] Media: " + mediaW + "x" + mediaH + 
-                         ", Visual rotation: " + currentVisualRotation +
-                         ", Container (original): " + containerW + "x" + containerH +
-                         ", Container (calc): " + calcContainerW + "x" + calcContainerH +
-                         ", Scale: " + scale +
-                         ", Display size: " + displayW + "x" + displayH);
+        if (Log.isDebugEnabled()) {
+            Log.debug("[updateVideoFit] Media: " + mediaW + "x" + mediaH +
+                    ", Visual rotation: " + currentVisualRotation +
+                    ", Container (original): " + containerW + "x" + containerH +
+                    ", Container (calc): " + calcContainerW + "x" + calcContainerH +
+                    ", Scale: " + scale +
+                    ", Display size: " + displayW + "x" + displayH);
+        }
     }
     
     /**
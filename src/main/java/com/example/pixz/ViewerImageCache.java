@@ -0,0 +1,218 @@
+package com.example.pixz;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.scene.image.Image;
+
+/**
+ * Decoded images for the fullscreen viewer
+ * Images are decoded off the FX thread at the size of the viewer (not the file),
+ * kept in a byte-budgeted LRU of recently viewed images, and can be prefetched for
+ * the neighbours of the current item; prefetches that are no longer wanted are
+ * cancelled before they start
+ *
+ * Sizes are in pixels of the stored (unrotated) image, except for prefetch, whose
+ * box is on screen
+ */
+public class ViewerImageCache {
+    // Memory budget for decoded viewer images, override with -Dpixz.viewerCacheMB=<n>
+    private static final long DEFAULT_MEMORY_CACHE_MB = 192;
+
+    // Full-screen images are large, so no soft overflow: evicted entries are dropped
+    private static final ImageMemoryCache<String> memoryCache = new ImageMemoryCache<>(
+            Long.getLong("pixz.viewerCacheMB", DEFAULT_MEMORY_CACHE_MB) * 1024L * 1024L, false);
+
+    private static final ExecutorService decodeExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "viewer-decode");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Decodes queued or running, by cache key (guarded by loads)
+    private static final Map<String, Load> loads = new HashMap<>();
+
+    /**
+     * Decode in flight and the size it was requested for
+     * A prefetch's size is on screen: the decode task swaps it for images displayed
+     * rotated by 90 or 270
+     */
+    private static final class Load {
+        final CompletableFuture<Image> future;
+        final int width;
+        final int height;
+        final boolean onScreen;
+
+        Load(CompletableFuture<Image> future, int width, int height, boolean onScreen) {
+            this.future = future;
+            this.width = width;
+            this.height = height;
+            this.onScreen = onScreen;
+        }
+
+        /**
+         * Whether this decode is at least width x height (stored orientation)
+         * Callers have read item's metadata to size the request, so it is cached
+         */
+        boolean covers(MediaItem item, int width, int height) {
+            if (onScreen && isRotated(item)) {
+                return this.height >= width && this.width >= height;
+            }
+            return this.width >= width && this.height >= height;
+        }
+    }
+
+    private ViewerImageCache() {
+    }
+
+    /**
+     * Cached image of item that is sharp enough for a width x height box, or null
+     */
+    public static Image getCached(MediaItem item, int width, int height) {
+        String key = item.getThumbnailKey();
+        Image image = key != null ? memoryCache.get(key) : null;
+        return image != null && covers(item, image, width, height) ? image : null;
+    }
+
+    /**
+     * Decode item to fit width x height (served from the cache or a pending decode
+     * when possible); completes with null if the image cannot be decoded
+     */
+    public static CompletableFuture<Image> load(MediaItem item, int width, int height) {
+        Image cached = getCached(item, width, height);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String key = item.getThumbnailKey();
+        synchronized (loads) {
+            Load pending = loads.get(key);
+            if (pending != null && !pending.future.isCancelled() && pending.covers(item, width, height)) {
+                return pending.future;
+            }
+            return start(key, item, width, height, false);
+        }
+    }
+
+    /**
+     * Decode item in the background so a later load is served from the cache
+     * width x height is the box on screen; the item's rotation is read on the decode
+     * thread, so this never touches the file on the caller's thread
+     */
+    public static void prefetch(MediaItem item, int width, int height) {
+        String key = item.getThumbnailKey();
+        synchronized (loads) {
+            Load pending = loads.get(key);
+            if (pending == null || pending.future.isCancelled()) {
+                start(key, item, width, height, true);
+            }
+        }
+    }
+
+    /**
+     * Queue a decode and register it in loads (caller holds the loads lock)
+     */
+    private static CompletableFuture<Image> start(String key, MediaItem item, int width, int height,
+            boolean onScreen) {
+        // A cancelled future is skipped by the executor when its turn comes
+        CompletableFuture<Image> future = CompletableFuture.supplyAsync(() -> {
+            boolean swap = onScreen && isRotated(item);
+            int boxWidth = swap ? height : width;
+            int boxHeight = swap ? width : height;
+            Image cached = getCached(item, boxWidth, boxHeight);
+            return cached != null ? cached : decode(item, boxWidth, boxHeight);
+        }, decodeExecutor);
+        Load load = new Load(future, width, height, onScreen);
+        loads.put(key, load);
+        future.whenComplete((image, throwable) -> {
+            synchronized (loads) {
+                loads.remove(key, load);
+            }
+            if (image != null) {
+                cacheUnlessSharper(key, image);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Whether item is displayed rotated by 90 or 270 (reads its metadata on first use)
+     */
+    private static boolean isRotated(MediaItem item) {
+        return MediaMetadataUtils.getMetadata(item).getRotation() % 180 != 0;
+    }
+
+    /**
+     * Cancel pending decodes of every item not in keep (decodes already running finish
+     * and are cached)
+     */
+    public static void retainOnly(Collection<MediaItem> keep) {
+        Set<String> keys = new HashSet<>();
+        for (MediaItem item : keep) {
+            keys.add(item.getThumbnailKey());
+        }
+        List<Load> stale = new ArrayList<>();
+        synchronized (loads) {
+            Iterator<Map.Entry<String, Load>> iterator = loads.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Load> entry = iterator.next();
+                if (!keys.contains(entry.getKey())) {
+                    stale.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        // Outside the lock: cancelling runs the completion callbacks
+        for (Load load : stale) {
+            load.future.cancel(false);
+        }
+    }
+
+    /**
+     * Cache image unless a larger decode of the same item is cached already (a late
+     * screen-size prefetch must not replace a zoom decode)
+     */
+    private static void cacheUnlessSharper(String key, Image image) {
+        synchronized (memoryCache) { // The cache's own lock: check and put are atomic
+            Image cached = memoryCache.get(key);
+            if (cached == null || cached.getWidth() < image.getWidth()) {
+                memoryCache.put(key, image);
+            }
+        }
+    }
+
+    private static Image decode(MediaItem item, int width, int height) {
+        File file = item.getFile();
+        Image image = ImageDecoder.decode(file, width, height);
+        if (image == null) {
+            // Formats ImageIO cannot read: JavaFX's loader, scaled while loading
+            image = new Image(file.toURI().toString(), width, height, true, true, false);
+        }
+        if (image.isError() || image.getWidth() == 0 || image.getHeight() == 0) {
+            return null;
+        }
+        return image;
+    }
+
+    /**
+     * Whether image was decoded for at least a width x height box: it fills the box
+     * in one dimension (decodes fit the box) or is the full-size image
+     */
+    public static boolean covers(MediaItem item, Image image, int width, int height) {
+        if (image.getWidth() >= width - 1 || image.getHeight() >= height - 1) {
+            return true;
+        }
+        MediaMetadata metadata = item.getMetadata();
+        return metadata != null && metadata.getWidth() > 0
+                && image.getWidth() >= metadata.getWidth() && image.getHeight() >= metadata.getHeight();
+    }
+}
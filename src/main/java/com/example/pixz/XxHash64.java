@@ -0,0 +1,172 @@
+package com.example.pixz;
+
+/**
+ * XXH64 (xxHash, 64-bit variant), used for thumbnail cache keys
+ * Non-cryptographic: fast and well distributed, but not collision resistant
+ * against deliberate attacks, which cache keys do not need
+ *
+ * hash(CharSequence) hashes the UTF-16LE encoding of the characters directly,
+ * so keying a path does not allocate an encoded byte array
+ */
+public final class XxHash64 {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private XxHash64() {
+    }
+
+    /**
+     * Hash bytes
+     */
+    public static long hash(byte[] data, long seed) {
+        int length = data.length;
+        int offset = 0;
+        long h;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME1 + PRIME2;
+            long v2 = seed + PRIME2;
+            long v3 = seed;
+            long v4 = seed - PRIME1;
+            int limit = length - 32;
+            do {
+                v1 = round(v1, readLong(data, offset));
+                v2 = round(v2, readLong(data, offset + 8));
+                v3 = round(v3, readLong(data, offset + 16));
+                v4 = round(v4, readLong(data, offset + 24));
+                offset += 32;
+            } while (offset <= limit);
+            h = mergeLanes(v1, v2, v3, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += length;
+
+        while (offset + 8 <= length) {
+            h = mixLong(h, readLong(data, offset));
+            offset += 8;
+        }
+        if (offset + 4 <= length) {
+            h = mixInt(h, readInt(data, offset));
+            offset += 4;
+        }
+        while (offset < length) {
+            h = mixByte(h, data[offset] & 0xFF);
+            offset++;
+        }
+        return avalanche(h);
+    }
+
+    /**
+     * Hash the UTF-16LE bytes of text (same result as hash(text.getBytes(UTF_16LE), seed))
+     */
+    public static long hash(CharSequence text, long seed) {
+        int chars = text.length();
+        int index = 0;
+        long h;
+
+        if (chars >= 16) { // 32 bytes per stripe, 4 chars per lane
+            long v1 = seed + PRIME1 + PRIME2;
+            long v2 = seed + PRIME2;
+            long v3 = seed;
+            long v4 = seed - PRIME1;
+            int limit = chars - 16;
+            do {
+                v1 = round(v1, readLong(text, index));
+                v2 = round(v2, readLong(text, index + 4));
+                v3 = round(v3, readLong(text, index + 8));
+                v4 = round(v4, readLong(text, index + 12));
+                index += 16;
+            } while (index <= limit);
+            h = mergeLanes(v1, v2, v3, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += 2L * chars;
+
+        while (index + 4 <= chars) {
+            h = mixLong(h, readLong(text, index));
+            index += 4;
+        }
+        if (index + 2 <= chars) {
+            h = mixInt(h, (text.charAt(index) | (long) text.charAt(index + 1) << 16) & 0xFFFFFFFFL);
+            index += 2;
+        }
+        if (index < chars) {
+            char c = text.charAt(index);
+            h = mixByte(h, c & 0xFF);
+            h = mixByte(h, c >>> 8);
+        }
+        return avalanche(h);
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeLanes(long v1, long v2, long v3, long v4) {
+        long h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+        h = mergeRound(h, v1);
+        h = mergeRound(h, v2);
+        h = mergeRound(h, v3);
+        return mergeRound(h, v4);
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    private static long mixLong(long h, long value) {
+        h ^= round(0, value);
+        return Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+    }
+
+    private static long mixInt(long h, long unsignedInt) {
+        h ^= unsignedInt * PRIME1;
+        return Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+    }
+
+    private static long mixByte(long h, int unsignedByte) {
+        h ^= unsignedByte * PRIME5;
+        return Long.rotateLeft(h, 11) * PRIME1;
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        return h ^ (h >>> 32);
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        return (data[offset] & 0xFFL)
+                | (data[offset + 1] & 0xFFL) << 8
+                | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24
+                | (data[offset + 4] & 0xFFL) << 32
+                | (data[offset + 5] & 0xFFL) << 40
+                | (data[offset + 6] & 0xFFL) << 48
+                | (data[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static long readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFFL)
+                | (data[offset + 1] & 0xFFL) << 8
+                | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24;
+    }
+
+    private static long readLong(CharSequence text, int index) {
+        return text.charAt(index)
+                | (long) text.charAt(index + 1) << 16
+                | (long) text.charAt(index + 2) << 32
+                | (long) text.charAt(index + 3) << 48;
+    }
+}
@@ -26,6 +26,9 @@ public class ZoomManager {
     private double lastMouseY = 0;
     private boolean isPanning = false;
     
+    // Notified after the zoom level or pan offset changed (e.g. to load sharper detail)
+    private Runnable onViewChanged;
+    
     public ZoomManager(Node target, Pane container) {
         this.target = target;
         this.container = container;
@@ -87,6 +90,7 @@ public class ZoomManager {
                 lastMouseX = event.getSceneX();
                 lastMouseY = event.getSceneY();
                 event.consume();
+                notifyViewChanged();
             }
         });
         
@@ -155,6 +159,7 @@ public class ZoomManager {
         target.setTranslateY(0);
         container.setCursor(javafx.scene.Cursor.DEFAULT);
         isPanning = false;
+        notifyViewChanged();
     }
     
     /**
@@ -181,6 +186,7 @@ public class ZoomManager {
             } else {
                 container.setCursor(javafx.scene.Cursor.OPEN_HAND);
             }
+            notifyViewChanged();
             return;
         }
         
@@ -213,6 +219,20 @@ public class ZoomManager {
         
         // Update cursor
         container.setCursor(javafx.scene.Cursor.OPEN_HAND);
+        notifyViewChanged();
+    }
+    
+    /**
+     * Set a callback run after every zoom level change and pan step.
+     */
+    public void setOnViewChanged(Runnable onViewChanged) {
+        this.onViewChanged = onViewChanged;
+    }
+    
+    private void notifyViewChanged() {
+        if (onViewChanged != null) {
+            onViewChanged.run();
+        }
     }
     
     /**
@@ -234,6 +254,7 @@ public class ZoomManager {
      */
     public void cleanup() {
         // Event filters are automatically removed when container is removed from scene
+        onViewChanged = null;
         resetZoom();
     }
 }
@@ -0,0 +1,180 @@
+package com.example.pixz;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javafx.scene.image.Image;
+
+/**
+ * FFmpegFrameExtractor against a stub executable (-Dpixz.ffmpeg), so no real
+ * ffmpeg is needed. The stub writes one 4x4 opaque RGBA frame per input and logs
+ * the number of inputs of every invocation; inputs named bad* fail the
+ * invocation, hang* never finish and slow* take half a second
+ */
+class FFmpegFrameExtractorTest {
+    private static final int SIZE = 4;
+
+    private static final String STUB = String.join("\n",
+            "#!/bin/sh",
+            "[ \"$1\" = \"-version\" ] && { echo 'ffmpeg version stub'; exit 0; }",
+            "inputs=0; fail=0; hang=0; slow=0; prev=",
+            "for arg in \"$@\"; do",
+            "  if [ \"$prev\" = \"-i\" ]; then",
+            "    inputs=$((inputs + 1))",
+            "    case $(basename \"$arg\") in bad*) fail=1;; hang*) hang=1;; slow*) slow=1;; esac",
+            "  fi",
+            "  prev=$arg",
+            "done",
+            "echo \"$inputs\" >> \"$(dirname \"$0\")/calls.log\"",
+            "[ $fail = 1 ] && exit 1",
+            "[ $hang = 1 ] && exec sleep 60",
+            "[ $slow = 1 ] && sleep 0.5",
+            "i=0",
+            "while [ $i -lt $((inputs * " + SIZE * SIZE + ")) ]; do printf '\\012\\144\\310\\377'; i=$((i + 1)); done",
+            "");
+
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void installStub() throws IOException {
+        Path stub = dir.resolve("ffmpeg");
+        Files.writeString(stub, STUB);
+        assertTrue(stub.toFile().setExecutable(true));
+        // Read once when FFmpegFrameExtractor is initialized
+        System.setProperty("pixz.ffmpeg", stub.toString());
+        System.setProperty("pixz.ffmpeg.timeoutMs", "1000");
+    }
+
+    @BeforeEach
+    void clearLog() throws IOException {
+        Files.deleteIfExists(dir.resolve("calls.log"));
+    }
+
+    @Test
+    void queuedRequestsShareOneRawvideoStream() throws Exception {
+        assertTrue(FFmpegFrameExtractor.isAvailable());
+        List<CompletableFuture<Image>> busy = occupyProcesses();
+
+        List<CompletableFuture<Image>> frames = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            frames.add(FFmpegFrameExtractor.extractFrame(video("clip" + i + ".mp4"), SIZE));
+        }
+        for (CompletableFuture<Image> frame : frames) {
+            Image image = frame.get(10, TimeUnit.SECONDS);
+            assertNotNull(image);
+            assertEquals(SIZE, image.getWidth());
+            assertEquals(SIZE, image.getHeight());
+        }
+        awaitAll(busy);
+
+        assertEquals(List.of(1, 1, 5), sorted(calls()));
+    }
+
+    @Test
+    void failedBatchIsRetriedFileByFile() throws Exception {
+        List<CompletableFuture<Image>> busy = occupyProcesses();
+
+        CompletableFuture<Image> first = FFmpegFrameExtractor.extractFrame(video("first.mp4"), SIZE);
+        CompletableFuture<Image> bad = FFmpegFrameExtractor.extractFrame(video("bad.mp4"), SIZE);
+        CompletableFuture<Image> last = FFmpegFrameExtractor.extractFrame(video("last.mp4"), SIZE);
+
+        assertNotNull(first.get(10, TimeUnit.SECONDS));
+        assertNull(bad.get(10, TimeUnit.SECONDS));
+        assertNotNull(last.get(10, TimeUnit.SECONDS));
+        awaitAll(busy);
+
+        // Two fillers, the failed batch of three, then one retry per file
+        assertEquals(List.of(1, 1, 1, 1, 1, 3), sorted(calls()));
+    }
+
+    @Test
+    void hungProcessIsKilledAndOnlyTheHungFileIsLost() throws Exception {
+        List<CompletableFuture<Image>> busy = occupyProcesses();
+
+        long start = System.nanoTime();
+        CompletableFuture<Image> good = FFmpegFrameExtractor.extractFrame(video("good.mp4"), SIZE);
+        CompletableFuture<Image> hang = FFmpegFrameExtractor.extractFrame(video("hang.mp4"), SIZE);
+
+        assertNotNull(good.get(20, TimeUnit.SECONDS));
+        assertNull(hang.get(20, TimeUnit.SECONDS));
+        awaitAll(busy);
+        // Batch timeout (1 s + 2 s per extra file) plus the single retry (1 s), not the stub's 60 s
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 15);
+
+        // Two fillers, the timed-out batch, then one retry per file
+        assertEquals(List.of(1, 1, 1, 1, 2), sorted(calls()));
+    }
+
+    /**
+     * Keep both ffmpeg processes busy so the following requests queue into one batch
+     */
+    private static List<CompletableFuture<Image>> occupyProcesses() throws Exception {
+        List<CompletableFuture<Image>> busy = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            busy.add(FFmpegFrameExtractor.extractFrame(video("slow" + i + ".mp4"), SIZE));
+            awaitCalls(i); // Started on its own before the next one is queued
+        }
+        return busy;
+    }
+
+    private static void awaitCalls(int count) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls().size() < count) {
+            assertTrue(System.nanoTime() < deadline, "stub was not started");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitAll(List<CompletableFuture<Image>> frames) throws Exception {
+        for (CompletableFuture<Image> frame : frames) {
+            assertNotNull(frame.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static File video(String name) throws IOException {
+        Path file = dir.resolve(name);
+        if (!Files.exists(file)) {
+            Files.createFile(file);
+        }
+        return file.toFile();
+    }
+
+    /**
+     * Number of inputs of every stub invocation so far
+     */
+    private static List<Integer> calls() throws IOException {
+        Path log = dir.resolve("calls.log");
+        List<Integer> calls = new ArrayList<>();
+        if (Files.exists(log)) {
+            for (String line : Files.readAllLines(log)) {
+                if (!line.isBlank()) {
+                    calls.add(Integer.parseInt(line.trim()));
+                }
+            }
+        }
+        return calls;
+    }
+
+    private static List<Integer> sorted(List<Integer> values) {
+        List<Integer> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+}